@@ -31,6 +31,7 @@ import com.intellij.openapi.fileEditor.FileEditorManagerEvent;
 import com.intellij.openapi.fileEditor.FileEditorManagerListener;
 import com.intellij.openapi.fileEditor.impl.FileOffsetsManager;
 import com.intellij.openapi.fileTypes.FileTypeRegistry;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
@@ -78,8 +79,12 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public final class DartAnalysisServerService implements Disposable {
   public static final String MIN_SDK_VERSION = "1.12";
@@ -105,6 +110,8 @@ public final class DartAnalysisServerService implements Disposable {
   private static final String MIN_WORKSPACE_APPLY_EDITS_SDK_VERSION = "3.8";
 
   private static final long UPDATE_FILES_TIMEOUT = 300;
+  // if more edits are collected for a document between two updates then it's cheaper to send the whole text
+  private static final int MAX_DOCUMENT_DELTA_EDITS = 500;
 
   private static final long CHECK_CANCELLED_PERIOD = 10;
   private static final long SEND_REQUEST_TIMEOUT = TimeUnit.SECONDS.toMillis(1);
@@ -155,12 +162,15 @@ public final class DartAnalysisServerService implements Disposable {
   private final Map<String, Long> myFilePathWithOverlaidContentToTimestamp = Collections.synchronizedMap(new HashMap<>());
   private final List<String> myVisibleFileUris = new ArrayList<>();
   private final Set<Document> myChangedDocuments = new HashSet<>();
+  // edits made to documents since their content was last sent to the server, guarded by myLock
+  private final Map<Document, DocumentDelta> myDocumentDeltas = new HashMap<>();
   private final Alarm myUpdateFilesAlarm;
 
   private final @NotNull Queue<CompletionInfo> myCompletionInfos = new LinkedList<>();
   private final @NotNull Queue<SearchResultsSet> mySearchResultSets = new LinkedList<>();
 
   private final @NotNull DartServerData myServerData;
+  private final @NotNull DartServerRequestCache myRequestCache = new DartServerRequestCache();
 
   private volatile boolean myAnalysisInProgress;
   private volatile boolean myPubListInProgress;
@@ -300,6 +310,7 @@ public final class DartAnalysisServerService implements Disposable {
       List<DartFileInfo> fileInfos = ContainerUtil.map(filePathsOrUris, pathOrUri -> DartFileInfoKt.getDartFileInfo(myProject, pathOrUri));
 
       myServerData.onFlushedResults(fileInfos);
+      myRequestCache.clear();
 
       for (DartFileInfo fileInfo : fileInfos) {
         if (fileInfo instanceof DartLocalFileInfo localFileInfo) {
@@ -348,6 +359,10 @@ public final class DartAnalysisServerService implements Disposable {
       if (RequestErrorCode.SERVER_ERROR.equals(error.getCode())) {
         serverError(false, error.getMessage(), error.getStackTrace());
       }
+      else if (RequestErrorCode.INVALID_OVERLAY_CHANGE.equals(error.getCode())) {
+        LOG.info(getShortErrorMessage("analysis.updateContent", null, error));
+        resendOverlaidContent();
+      }
       else {
         LOG.info(getShortErrorMessage("unknown", null, error));
       }
@@ -774,9 +789,16 @@ public final class DartAnalysisServerService implements Disposable {
         if (myServer == null) return;
 
         myServerData.onDocumentChanged(e);
+        myRequestCache.clear();
 
         final VirtualFile file = FileDocumentManager.getInstance().getFile(e.getDocument());
         if (isLocalAnalyzableFile(file)) {
+          if (isIncrementalOverlaysEnabled() && file.isInLocalFileSystem()) {
+            synchronized (myLock) {
+              recordDocumentDelta(file, e);
+            }
+          }
+
           for (VirtualFile fileInEditor : FileEditorManager.getInstance(myProject).getOpenFiles()) {
             if (fileInEditor.equals(file)) {
               synchronized (myLock) {
@@ -790,11 +812,46 @@ public final class DartAnalysisServerService implements Disposable {
         myUpdateFilesAlarm.cancelAllRequests();
         myUpdateFilesAlarm.addRequest(DartAnalysisServerService.this::updateFilesContent, UPDATE_FILES_TIMEOUT);
       }
+
+      @Override
+      public void documentChanged(@NotNull DocumentEvent e) {
+        if (myServer == null) return;
+
+        synchronized (myLock) {
+          final DocumentDelta delta = myDocumentDeltas.get(e.getDocument());
+          if (delta != null) {
+            delta.myLastTimestamp = e.getDocument().getModificationStamp();
+          }
+        }
+      }
     };
 
     EditorFactory.getInstance().getEventMulticaster().addDocumentListener(documentListener, this);
   }
 
+  private static boolean isIncrementalOverlaysEnabled() {
+    return Registry.is("dart.server.incremental.overlays", true);
+  }
+
+  /**
+   * Remembers the edit described by {@code e} so that the next {@link #doUpdateFilesContent()} may send a {@link ChangeContentOverlay}
+   * instead of the whole document text.
+   */
+  private void recordDocumentDelta(@NotNull VirtualFile file, @NotNull DocumentEvent e) {
+    final Document document = e.getDocument();
+    DocumentDelta delta = myDocumentDeltas.get(document);
+    if (delta == null) {
+      final Long sentTimestamp = myFilePathWithOverlaidContentToTimestamp.get(file.getPath());
+      // no overlay on the server side yet or the server has some other content, full text will be sent anyway
+      if (sentTimestamp == null || sentTimestamp != document.getModificationStamp()) return;
+
+      delta = new DocumentDelta(sentTimestamp);
+      myDocumentDeltas.put(document, delta);
+    }
+
+    delta.addEdit(document, new SourceEdit(e.getOffset(), e.getOldLength(), e.getNewFragment().toString(), null, null));
+  }
+
   public static @NotNull DartAnalysisServerService getInstance(final @NotNull Project project) {
     return project.getService(DartAnalysisServerService.class);
   }
@@ -941,9 +998,20 @@ public final class DartAnalysisServerService implements Disposable {
     }
   }
 
-  private void doUpdateFilesContent() {
-    // may be use DocumentListener to collect deltas instead of sending the whole Document.getText() each time?
+  private void resendOverlaidContent() {
+    synchronized (myLock) {
+      // keep the keys, they are used for offsets conversion; changed timestamps make doUpdateFilesContent() send the whole text
+      synchronized (myFilePathWithOverlaidContentToTimestamp) {
+        myFilePathWithOverlaidContentToTimestamp.replaceAll((path, timestamp) -> -1L);
+      }
+      myDocumentDeltas.clear();
+    }
 
+    myUpdateFilesAlarm.cancelAllRequests();
+    myUpdateFilesAlarm.addRequest(this::updateFilesContent, 0);
+  }
+
+  private void doUpdateFilesContent() {
     AnalysisServer server = myServer;
     if (server == null) {
       return;
@@ -974,12 +1042,19 @@ public final class DartAnalysisServerService implements Disposable {
 
           final Long oldTimestamp = myFilePathWithOverlaidContentToTimestamp.get(file.getPath());
           if (oldTimestamp == null || document.getModificationStamp() != oldTimestamp) {
-            fileUriToContentOverlay.put(getLocalFileUri(file.getPath()), new AddContentOverlay(document.getText()));
+            final DocumentDelta delta = myDocumentDeltas.get(document);
+            final Object overlay = delta != null && delta.isApplicable(oldTimestamp, document)
+                                   ? new ChangeContentOverlay(delta.myEdits)
+                                   : new AddContentOverlay(document.getText());
+            fileUriToContentOverlay.put(getLocalFileUri(file.getPath()), overlay);
             myFilePathWithOverlaidContentToTimestamp.put(file.getPath(), document.getModificationStamp());
           }
         }
       }
 
+      // all deltas are either sent or not needed anymore: overlays of the documents that are not in the set above are removed
+      myDocumentDeltas.clear();
+
       // oldTrackedFilePaths at this point contains only those files that are not in FileDocumentManager.getUnsavedDocuments() anymore
       filePathsToRemoveContentOverlay = Collections.unmodifiableSet(oldTrackedFilePaths);
       for (String oldPath : filePathsToRemoveContentOverlay) {
@@ -994,7 +1069,10 @@ public final class DartAnalysisServerService implements Disposable {
           overlaidFileUris.remove(getLocalFileUri(filePathToRemoveContentOverlay));
         }
         if (!overlaidFileUris.isEmpty()) {
-          LOG.debug("Sending overlaid content: " + StringUtil.join(overlaidFileUris, ",\n"));
+          LOG.debug("Sending overlaid content: " + StringUtil.join(overlaidFileUris, uri ->
+            fileUriToContentOverlay.get(uri) instanceof ChangeContentOverlay changeOverlay
+            ? uri + " (" + changeOverlay.getEdits().size() + " edits)"
+            : uri, ",\n"));
         }
 
         if (!filePathsToRemoveContentOverlay.isEmpty()) {
@@ -1090,55 +1168,91 @@ public final class DartAnalysisServerService implements Disposable {
     }
   }
 
-  public @NotNull List<HoverInformation> analysis_getHover(final @NotNull VirtualFile file, final int _offset) {
-    final AnalysisServer server = myServer;
+  public @NotNull List<HoverInformation> analysis_getHover(final @NotNull VirtualFile file, final int offset) {
+    final List<HoverInformation> result =
+      awaitForFutureCheckingCanceled(analysis_getHoverAsync(file, offset), GET_HOVER_TIMEOUT, "analysis_getHover", getFileUri(file));
+    return result != null ? result : HoverInformation.EMPTY_LIST;
+  }
+
+  /**
+   * Doesn't block. Cancelling the returned future cancels the request on the server side unless an identical request is still awaited
+   * by another caller. The future completes with an empty list if the server is not running or responds with an error.
+   */
+  public @NotNull CompletableFuture<List<HoverInformation>> analysis_getHoverAsync(final @NotNull VirtualFile file, final int _offset) {
+    if (myServer == null) {
+      return CompletableFuture.completedFuture(HoverInformation.EMPTY_LIST);
+    }
+
+    final DartServerRequestCache.Key key =
+      new DartServerRequestCache.Key("analysis_getHover", getFileUri(file), _offset, 0, getDocumentStamp(file));
+    return myRequestCache.get(key, () -> doGetHoverAsync(file, _offset));
+  }
+
+  private @NotNull CompletableFuture<List<HoverInformation>> doGetHoverAsync(final @NotNull VirtualFile file, final int _offset) {
+    final RemoteAnalysisServerImpl server = myServer;
     if (server == null) {
-      return HoverInformation.EMPTY_LIST;
+      return CompletableFuture.completedFuture(HoverInformation.EMPTY_LIST);
     }
 
     final String fileUri = getFileUri(file);
-    final List<HoverInformation> result = new ArrayList<>();
-
-    final CountDownLatch latch = new CountDownLatch(1);
+    final CompletableFuture<List<HoverInformation>> future = new CompletableFuture<>();
     final int offset = getOriginalOffset(file, _offset);
-    server.analysis_getHover(fileUri, offset, new GetHoverConsumer() {
+    final GetHoverConsumer consumer = new GetHoverConsumer() {
       @Override
       public void computedHovers(HoverInformation[] hovers) {
-        Collections.addAll(result, hovers);
-        latch.countDown();
+        future.complete(Arrays.asList(hovers));
       }
 
       @Override
       public void onError(RequestError error) {
+        if (future.isCancelled()) return;
         logError("analysis_getHover()", fileUri, error);
-        latch.countDown();
+        future.complete(HoverInformation.EMPTY_LIST);
       }
-    });
+    };
+    server.analysis_getHover(fileUri, offset, consumer);
+    return cancelOnServerWhenCancelled(server, consumer, future);
+  }
 
-    awaitForLatchCheckingCanceled(server, latch, GET_HOVER_TIMEOUT);
+  public @Nullable List<DartServerData.DartNavigationRegion> analysis_getNavigation(final @NotNull VirtualFile file,
+                                                                                    final int offset,
+                                                                                    final int length) {
+    return awaitForFutureCheckingCanceled(analysis_getNavigationAsync(file, offset, length), GET_NAVIGATION_TIMEOUT,
+                                          "analysis_getNavigation", getFileUri(file));
+  }
 
-    if (latch.getCount() > 0) {
-      logTookTooLongMessage("analysis_getHover", GET_HOVER_TIMEOUT, fileUri);
+  /**
+   * Doesn't block. Cancelling the returned future cancels the request on the server side unless an identical request is still awaited
+   * by another caller. The future completes with {@code null} if the server is not running or responds with an error.
+   */
+  public @NotNull CompletableFuture<List<DartServerData.DartNavigationRegion>> analysis_getNavigationAsync(
+    final @NotNull VirtualFile file,
+    final int _offset,
+    final int length) {
+    if (myServer == null) {
+      return CompletableFuture.completedFuture(null);
     }
-    return result;
+
+    final DartServerRequestCache.Key key =
+      new DartServerRequestCache.Key("analysis_getNavigation", getFileUri(file), _offset, length, getDocumentStamp(file));
+    return myRequestCache.get(key, () -> doGetNavigationAsync(file, _offset, length));
   }
 
-  public @Nullable List<DartServerData.DartNavigationRegion> analysis_getNavigation(final @NotNull VirtualFile file,
-                                                                                    final int _offset,
-                                                                                    final int length) {
-    final AnalysisServer server = myServer;
+  private @NotNull CompletableFuture<List<DartServerData.DartNavigationRegion>> doGetNavigationAsync(
+    final @NotNull VirtualFile file,
+    final int _offset,
+    final int length) {
+    final RemoteAnalysisServerImpl server = myServer;
     if (server == null) {
-      return null;
+      return CompletableFuture.completedFuture(null);
     }
 
     final String fileUri = getFileUri(file);
-    final Ref<List<DartServerData.DartNavigationRegion>> resultRef = Ref.create();
-
-    final CountDownLatch latch = new CountDownLatch(1);
+    final CompletableFuture<List<DartServerData.DartNavigationRegion>> future = new CompletableFuture<>();
     LOG.debug("analysis_getNavigation(" + fileUri + ")");
 
     final int offset = getOriginalOffset(file, _offset);
-    server.analysis_getNavigation(fileUri, offset, length, new GetNavigationConsumer() {
+    final GetNavigationConsumer consumer = new GetNavigationConsumer() {
       @Override
       public void computedNavigation(final List<NavigationRegion> regions) {
         final List<DartServerData.DartNavigationRegion> dartRegions = new ArrayList<>(regions.size());
@@ -1148,12 +1262,12 @@ public final class DartAnalysisServerService implements Disposable {
           }
         }
 
-        resultRef.set(dartRegions);
-        latch.countDown();
+        future.complete(dartRegions);
       }
 
       @Override
       public void onError(final RequestError error) {
+        if (future.isCancelled()) return;
         if (RequestErrorCode.GET_NAVIGATION_INVALID_FILE.equals(error.getCode())) {
           LOG.info(getShortErrorMessage("analysis_getNavigation()", fileUri, error));
         }
@@ -1161,54 +1275,53 @@ public final class DartAnalysisServerService implements Disposable {
           logError("analysis_getNavigation()", fileUri, error);
         }
 
-        latch.countDown();
+        future.complete(null);
       }
-    });
-
-    awaitForLatchCheckingCanceled(server, latch, GET_NAVIGATION_TIMEOUT);
-
-    if (latch.getCount() > 0) {
-      logTookTooLongMessage("analysis_getNavigation", GET_NAVIGATION_TIMEOUT, fileUri);
-    }
+    };
+    server.analysis_getNavigation(fileUri, offset, length, consumer);
+    return cancelOnServerWhenCancelled(server, consumer, future);
+  }
 
-    return resultRef.get();
+  public @NotNull List<SourceChange> edit_getAssists(final @NotNull VirtualFile file, final int offset, final int length) {
+    final long timeout = ApplicationManager.getApplication().isDispatchThread() ? GET_ASSISTS_TIMEOUT_EDT : GET_ASSISTS_TIMEOUT;
+    final List<SourceChange> result =
+      awaitForFutureCheckingCanceled(edit_getAssistsAsync(file, offset, length), timeout, "edit_getAssists", getFileUri(file));
+    return result != null ? result : Collections.emptyList();
   }
 
-  public @NotNull List<SourceChange> edit_getAssists(final @NotNull VirtualFile file, final int _offset, final int _length) {
-    if (!file.isInLocalFileSystem()) return Collections.emptyList();
+  /**
+   * Doesn't block. Cancelling the returned future cancels the request on the server side.
+   * The future completes with an empty list if the server is not running or responds with an error.
+   */
+  public @NotNull CompletableFuture<List<SourceChange>> edit_getAssistsAsync(final @NotNull VirtualFile file,
+                                                                             final int _offset,
+                                                                             final int _length) {
+    if (!file.isInLocalFileSystem()) return CompletableFuture.completedFuture(Collections.emptyList());
 
-    final AnalysisServer server = myServer;
+    final RemoteAnalysisServerImpl server = myServer;
     if (server == null) {
-      return Collections.emptyList();
+      return CompletableFuture.completedFuture(Collections.emptyList());
     }
 
     final String fileUri = getLocalFileUri(file.getPath());
-    final List<SourceChange> results = new ArrayList<>();
-    final CountDownLatch latch = new CountDownLatch(1);
+    final CompletableFuture<List<SourceChange>> future = new CompletableFuture<>();
     final int offset = getOriginalOffset(file, _offset);
     final int length = getOriginalOffset(file, _offset + _length) - offset;
-    server.edit_getAssists(fileUri, offset, length, new GetAssistsConsumer() {
+    final GetAssistsConsumer consumer = new GetAssistsConsumer() {
       @Override
       public void computedSourceChanges(List<SourceChange> sourceChanges) {
-        results.addAll(sourceChanges);
-        latch.countDown();
+        future.complete(sourceChanges);
       }
 
       @Override
       public void onError(final RequestError error) {
+        if (future.isCancelled()) return;
         logError("edit_getAssists()", fileUri, error);
-        latch.countDown();
+        future.complete(Collections.emptyList());
       }
-    });
-
-    final long timeout = ApplicationManager.getApplication().isDispatchThread() ? GET_ASSISTS_TIMEOUT_EDT : GET_ASSISTS_TIMEOUT;
-
-    awaitForLatchCheckingCanceled(server, latch, timeout);
-
-    if (latch.getCount() > 0) {
-      logTookTooLongMessage("edit_getAssists", timeout, fileUri);
-    }
-    return results;
+    };
+    server.edit_getAssists(fileUri, offset, length, consumer);
+    return cancelOnServerWhenCancelled(server, consumer, future);
   }
 
   public boolean edit_isPostfixCompletionApplicable(VirtualFile file, int _offset, String key) {
@@ -1360,43 +1473,46 @@ public final class DartAnalysisServerService implements Disposable {
    * {@code consumer} is already notified. Otherwise, this method is async.
    */
   public void askForFixesAndWaitABitIfReceivedQuickly(final @NotNull VirtualFile file,
-                                                      final int _offset,
+                                                      final int offset,
                                                       final @NotNull Consumer<? super List<AnalysisErrorFixes>> consumer) {
-    if (!file.isInLocalFileSystem()) {
-      consumer.consume(Collections.emptyList());
-      return;
-    }
+    final CompletableFuture<Void> consumed = edit_getFixesAsync(file, offset).thenAccept(consumer::consume);
 
-    final AnalysisServer server = myServer;
+    final long timeout = ApplicationManager.getApplication().isDispatchThread() ? GET_FIXES_TIMEOUT_EDT : GET_FIXES_TIMEOUT;
+    // wait until the consumer has been notified, but don't cancel the request on timeout, the consumer expects the fixes even if they
+    // come later
+    awaitForFutureCheckingCanceled(consumed.copy(), timeout, "edit_getFixes", getFileUri(file));
+  }
+
+  /**
+   * Doesn't block. Cancelling the returned future cancels the request on the server side.
+   * The future completes with an empty list if the server is not running or responds with an error.
+   */
+  public @NotNull CompletableFuture<List<AnalysisErrorFixes>> edit_getFixesAsync(final @NotNull VirtualFile file, final int _offset) {
+    if (!file.isInLocalFileSystem()) return CompletableFuture.completedFuture(Collections.emptyList());
+
+    final RemoteAnalysisServerImpl server = myServer;
     if (server == null) {
-      consumer.consume(Collections.emptyList());
-      return;
+      return CompletableFuture.completedFuture(Collections.emptyList());
     }
 
     final String fileUri = getLocalFileUri(file.getPath());
-    final CountDownLatch latch = new CountDownLatch(1);
+    final CompletableFuture<List<AnalysisErrorFixes>> future = new CompletableFuture<>();
     final int offset = getOriginalOffset(file, _offset);
-    server.edit_getFixes(fileUri, offset, new GetFixesConsumer() {
+    final GetFixesConsumer consumer = new GetFixesConsumer() {
       @Override
       public void computedFixes(final List<AnalysisErrorFixes> fixes) {
-        consumer.consume(fixes);
-        latch.countDown();
+        future.complete(fixes);
       }
 
       @Override
       public void onError(final RequestError error) {
+        if (future.isCancelled()) return;
         logError("edit_getFixes()", fileUri, error);
-        latch.countDown();
+        future.complete(Collections.emptyList());
       }
-    });
-
-    final long timeout = ApplicationManager.getApplication().isDispatchThread() ? GET_FIXES_TIMEOUT_EDT : GET_FIXES_TIMEOUT;
-
-    awaitForLatchCheckingCanceled(server, latch, timeout);
-
-    if (latch.getCount() > 0) {
-      logTookTooLongMessage("edit_getFixes", timeout, fileUri);
-    }
+    };
+    server.edit_getFixes(fileUri, offset, consumer);
+    return cancelOnServerWhenCancelled(server, consumer, future);
   }
 
   public void search_findElementReferences(final @NotNull VirtualFile file,
@@ -1462,37 +1578,44 @@ public final class DartAnalysisServerService implements Disposable {
   }
 
   public @NotNull List<TypeHierarchyItem> search_getTypeHierarchy(final @NotNull VirtualFile file,
-                                                                  final int _offset,
+                                                                  final int offset,
                                                                   final boolean superOnly) {
-    final List<TypeHierarchyItem> results = new ArrayList<>();
-    final AnalysisServer server = myServer;
+    final List<TypeHierarchyItem> result = awaitForFutureCheckingCanceled(search_getTypeHierarchyAsync(file, offset, superOnly),
+                                                                          GET_TYPE_HIERARCHY_TIMEOUT, "search_getTypeHierarchy",
+                                                                          getFileUri(file));
+    return result != null ? result : new ArrayList<>();
+  }
+
+  /**
+   * Doesn't block. Cancelling the returned future cancels the request on the server side.
+   * The future completes with an empty list if the server is not running or responds with an error.
+   */
+  public @NotNull CompletableFuture<List<TypeHierarchyItem>> search_getTypeHierarchyAsync(final @NotNull VirtualFile file,
+                                                                                         final int _offset,
+                                                                                         final boolean superOnly) {
+    final RemoteAnalysisServerImpl server = myServer;
     if (server == null) {
-      return results;
+      return CompletableFuture.completedFuture(new ArrayList<>());
     }
 
     final String fileUri = getFileUri(file);
-    final CountDownLatch latch = new CountDownLatch(1);
+    final CompletableFuture<List<TypeHierarchyItem>> future = new CompletableFuture<>();
     final int offset = getOriginalOffset(file, _offset);
-    server.search_getTypeHierarchy(fileUri, offset, superOnly, new GetTypeHierarchyConsumer() {
+    final GetTypeHierarchyConsumer consumer = new GetTypeHierarchyConsumer() {
       @Override
       public void computedHierarchy(List<TypeHierarchyItem> hierarchyItems) {
-        results.addAll(hierarchyItems);
-        latch.countDown();
+        future.complete(hierarchyItems);
       }
 
       @Override
       public void onError(RequestError error) {
+        if (future.isCancelled()) return;
         logError("search_getTypeHierarchy()", fileUri, error);
-        latch.countDown();
+        future.complete(new ArrayList<>());
       }
-    });
-
-    awaitForLatchCheckingCanceled(server, latch, GET_TYPE_HIERARCHY_TIMEOUT);
-
-    if (latch.getCount() > 0) {
-      logTookTooLongMessage("search_getTypeHierarchy", GET_TYPE_HIERARCHY_TIMEOUT, fileUri);
-    }
-    return results;
+    };
+    server.search_getTypeHierarchy(fileUri, offset, superOnly, consumer);
+    return cancelOnServerWhenCancelled(server, consumer, future);
   }
 
   public @Nullable Pair<String, SourceChange> completion_getSuggestionDetails(@NotNull VirtualFile file,
@@ -2385,7 +2508,9 @@ public final class DartAnalysisServerService implements Disposable {
       myFilePathWithOverlaidContentToTimestamp.clear();
       myVisibleFileUris.clear();
       myChangedDocuments.clear();
+      myDocumentDeltas.clear();
       myServerData.clearData();
+      myRequestCache.clear();
       myRootsHandler.onServerStopped();
 
       if (myProject.isOpen() && !myProject.isDisposed()) {
@@ -2510,6 +2635,78 @@ public final class DartAnalysisServerService implements Disposable {
     }
   }
 
+  private static long getDocumentStamp(final @NotNull VirtualFile file) {
+    final Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    return document != null ? document.getModificationStamp() : file.getModificationStamp();
+  }
+
+  /**
+   * The server still answers a cancelled request, usually with an error, so the {@code consumer} should ignore the answer if the
+   * {@code future} is cancelled.
+   */
+  private static <T> @NotNull CompletableFuture<T> cancelOnServerWhenCancelled(final @NotNull RemoteAnalysisServerImpl server,
+                                                                               final @NotNull com.google.dart.server.Consumer consumer,
+                                                                               final @NotNull CompletableFuture<T> future) {
+    future.whenComplete((result, throwable) -> {
+      if (future.isCancelled()) {
+        server.cancelRequest(consumer);
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Waits for the {@code future} the same way as {@link #awaitForLatchCheckingCanceled}. The future is cancelled if the wait is
+   * cancelled or timed out, and {@code null} is returned in the latter case.
+   */
+  private <T> @Nullable T awaitForFutureCheckingCanceled(final @NotNull CompletableFuture<T> future,
+                                                         long timeoutInMillis,
+                                                         final @NonNls @NotNull String methodName,
+                                                         final @Nullable String filePath) {
+    if (ApplicationManager.getApplication().isUnitTestMode()) {
+      timeoutInMillis *= TESTS_TIMEOUT_COEFF;
+    }
+
+    final AnalysisServer server = myServer;
+    final long startTime = System.currentTimeMillis();
+    try {
+      while (true) {
+        ProgressManager.checkCanceled();
+        if (future.isCancelled()) {
+          return null;
+        }
+        if (future.isDone()) {
+          return future.getNow(null);
+        }
+        if (server == null || !server.isSocketOpen()) {
+          future.cancel(false);
+          return null;
+        }
+        if (System.currentTimeMillis() > startTime + timeoutInMillis) {
+          future.cancel(false);
+          logTookTooLongMessage(methodName, timeoutInMillis, filePath);
+          return null;
+        }
+        try {
+          return future.get(CHECK_CANCELLED_PERIOD, TimeUnit.MILLISECONDS);
+        }
+        catch (TimeoutException ignored) {
+        }
+        catch (CancellationException e) {
+          return null;
+        }
+        catch (InterruptedException | ExecutionException e) {
+          future.cancel(false);
+          return null;
+        }
+      }
+    }
+    catch (ProcessCanceledException e) {
+      future.cancel(false);
+      throw e;
+    }
+  }
+
   private void registerPostfixCompletionTemplates() {
     ApplicationManager.getApplication().executeOnPooledThread(() -> DartPostfixTemplateProvider.initializeTemplates(this));
   }
@@ -2527,6 +2724,41 @@ public final class DartAnalysisServerService implements Disposable {
                            @Nullable String libraryFilePathSD);
   }
 
+  /**
+   * Chain of edits that turns the document content sent to the server at {@code myBaseTimestamp} into the current document content.
+   * Once the chain is broken (the document was changed without a document event, or too many edits are collected) it stays invalid
+   * and the whole document text is sent instead.
+   */
+  private static final class DocumentDelta {
+    private final long myBaseTimestamp;
+    private long myLastTimestamp;
+    private @Nullable List<SourceEdit> myEdits = new ArrayList<>();
+
+    private DocumentDelta(long baseTimestamp) {
+      myBaseTimestamp = baseTimestamp;
+      myLastTimestamp = baseTimestamp;
+    }
+
+    private void addEdit(@NotNull Document document, @NotNull SourceEdit edit) {
+      if (myEdits == null) return;
+
+      if (myLastTimestamp != document.getModificationStamp() || myEdits.size() >= MAX_DOCUMENT_DELTA_EDITS) {
+        myEdits = null;
+        return;
+      }
+
+      myEdits.add(edit);
+    }
+
+    private boolean isApplicable(@Nullable Long sentTimestamp, @NotNull Document document) {
+      return myEdits != null &&
+             !myEdits.isEmpty() &&
+             sentTimestamp != null &&
+             sentTimestamp == myBaseTimestamp &&
+             myLastTimestamp == document.getModificationStamp();
+    }
+  }
+
   private static class CompletionInfo {
     private final @NotNull String myCompletionId;
     /**
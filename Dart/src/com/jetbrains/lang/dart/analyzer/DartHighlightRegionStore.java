@@ -0,0 +1,225 @@
+// Copyright 2000-2025 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.jetbrains.lang.dart.analyzer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Highlight regions of a single file stored in parallel arrays sorted by offset.
+ * <p>
+ * Offsets of the regions that follow the last edited place are shifted lazily: all regions starting from {@link #myShiftIndex}
+ * are assumed to have {@link #myShiftDelta} added to their stored offsets. So an edit costs a binary search plus the number of
+ * regions between this edit and the previous one, instead of a walk over all regions of the file.
+ */
+final class DartHighlightRegionStore {
+  // there are just a few dozens of HighlightRegionType values, regions keep indices in this list
+  private static final Map<String, Short> ourKindToIndex = new ConcurrentHashMap<>();
+  private static final List<String> ourKinds = Collections.synchronizedList(new ArrayList<>());
+
+  private static final int REMOVED = -1;
+
+  private int[] myOffsets;
+  private int[] myLengths;
+  private short[] myKinds;
+  private int mySize;
+
+  private int myShiftIndex;
+  private int myShiftDelta;
+
+  // upper bound for the length of any region, used to find regions that start before the edited place but contain it
+  private int myMaxLength;
+  private int myRemovedCount;
+
+  DartHighlightRegionStore(int @NotNull [] offsets, int @NotNull [] lengths, @NotNull List<String> kinds) {
+    mySize = offsets.length;
+
+    // stable sort keeps the server order of the regions that start at the same offset
+    Integer[] order = new Integer[mySize];
+    for (int i = 0; i < mySize; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (i1, i2) -> Integer.compare(offsets[i1], offsets[i2]));
+
+    myOffsets = new int[mySize];
+    myLengths = new int[mySize];
+    myKinds = new short[mySize];
+    for (int i = 0; i < mySize; i++) {
+      int index = order[i];
+      myOffsets[i] = offsets[index];
+      myLengths[i] = lengths[index];
+      myKinds[i] = getKindIndex(kinds.get(index));
+      myMaxLength = Math.max(myMaxLength, lengths[index]);
+    }
+
+    myShiftIndex = mySize;
+  }
+
+  private static short getKindIndex(@NotNull String kind) {
+    Short index = ourKindToIndex.get(kind);
+    if (index != null) return index;
+
+    synchronized (ourKinds) {
+      return ourKindToIndex.computeIfAbsent(kind, k -> {
+        ourKinds.add(k.intern());
+        return (short)(ourKinds.size() - 1);
+      });
+    }
+  }
+
+  synchronized boolean isEmpty() {
+    return mySize == myRemovedCount;
+  }
+
+  synchronized @NotNull List<DartServerData.DartHighlightRegion> getRegions() {
+    if (isEmpty()) return Collections.emptyList();
+
+    List<DartServerData.DartHighlightRegion> result = new ArrayList<>(mySize - myRemovedCount);
+    for (int i = 0; i < mySize; i++) {
+      if (myLengths[i] != REMOVED) {
+        result.add(new DartServerData.DartHighlightRegion(getOffset(i), myLengths[i], ourKinds.get(myKinds[i])));
+      }
+    }
+    return result;
+  }
+
+  private int getOffset(int index) {
+    return index < myShiftIndex ? myOffsets[index] : myOffsets[index] + myShiftDelta;
+  }
+
+  /**
+   * Regions after the edited range are shifted, regions containing the edited range are expanded or shrunk,
+   * other regions touched by deletion are removed.
+   */
+  synchronized void onDocumentChanged(int eventOffset, int deltaLength) {
+    if (deltaLength == 0 || isEmpty()) return;
+
+    if (myRemovedCount > mySize / 2) {
+      compact();
+    }
+
+    if (deltaLength > 0) {
+      // Something was typed. Shift untouched regions, update touched.
+      final int firstShifted = findFirstIndexWithOffsetNotLessThan(eventOffset);
+      moveShift(firstShifted);
+      myShiftDelta += deltaLength;
+
+      for (int i = firstShifted - 1; i >= 0 && myOffsets[i] + myMaxLength > eventOffset; i--) {
+        if (myLengths[i] != REMOVED && eventOffset < myOffsets[i] + myLengths[i]) {
+          myLengths[i] += deltaLength;
+          myMaxLength = Math.max(myMaxLength, myLengths[i]);
+        }
+      }
+    }
+    else {
+      // Some text was deleted. Shift untouched regions, delete or update touched.
+      final int eventRightOffset = eventOffset - deltaLength;
+      final int firstTouched = findFirstIndexWithOffsetNotLessThan(eventOffset);
+      final int firstShifted = findFirstIndexWithOffsetNotLessThan(eventRightOffset);
+      moveShift(firstShifted);
+      myShiftDelta += deltaLength;
+
+      // regions that start inside the deleted range
+      for (int i = firstTouched; i < firstShifted; i++) {
+        if (myLengths[i] != REMOVED &&
+            myOffsets[i] == eventOffset && eventRightOffset <= myOffsets[i] + myLengths[i] && myLengths[i] != -deltaLength) {
+          myLengths[i] += deltaLength;
+        }
+        else {
+          if (myLengths[i] != REMOVED) {
+            remove(i);
+          }
+          // keep the offsets sorted, the following regions are shifted to eventOffset at least
+          myOffsets[i] = eventOffset;
+        }
+      }
+
+      // regions that start before the deleted range
+      for (int i = firstTouched - 1; i >= 0 && myOffsets[i] + myMaxLength > eventOffset; i--) {
+        if (myLengths[i] == REMOVED) continue;
+
+        final int regionRightOffset = myOffsets[i] + myLengths[i];
+        if (eventRightOffset <= regionRightOffset && myLengths[i] != -deltaLength) {
+          myLengths[i] += deltaLength;
+        }
+        else if (eventOffset < regionRightOffset) {
+          remove(i);
+        }
+      }
+    }
+  }
+
+  private void remove(int index) {
+    myLengths[index] = REMOVED;
+    myRemovedCount++;
+  }
+
+  /**
+   * Binary search over the actual offsets. Actual offsets are sorted because edits shift all regions that follow the edited place.
+   */
+  private int findFirstIndexWithOffsetNotLessThan(int offset) {
+    int low = 0;
+    int high = mySize;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (getOffset(mid) < offset) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Moves the start of the lazily shifted part of the arrays to {@code newShiftIndex} without changing actual offsets of the regions.
+   * Only the regions between the old and the new shift index are touched.
+   */
+  private void moveShift(int newShiftIndex) {
+    if (myShiftDelta != 0) {
+      if (newShiftIndex < myShiftIndex) {
+        for (int i = newShiftIndex; i < myShiftIndex; i++) {
+          myOffsets[i] -= myShiftDelta;
+        }
+      }
+      else {
+        for (int i = myShiftIndex; i < newShiftIndex; i++) {
+          myOffsets[i] += myShiftDelta;
+        }
+      }
+    }
+    myShiftIndex = newShiftIndex;
+  }
+
+  /**
+   * Applies the pending shift and drops removed regions.
+   */
+  private void compact() {
+    int count = 0;
+    int maxLength = 0;
+    for (int i = 0; i < mySize; i++) {
+      if (myLengths[i] != REMOVED) {
+        myOffsets[count] = getOffset(i);
+        myLengths[count] = myLengths[i];
+        myKinds[count] = myKinds[i];
+        maxLength = Math.max(maxLength, myLengths[i]);
+        count++;
+      }
+    }
+
+    myOffsets = Arrays.copyOf(myOffsets, count);
+    myLengths = Arrays.copyOf(myLengths, count);
+    myKinds = Arrays.copyOf(myKinds, count);
+    mySize = count;
+    myRemovedCount = 0;
+    myShiftIndex = count;
+    myShiftDelta = 0;
+    myMaxLength = maxLength;
+  }
+}
@@ -17,10 +17,12 @@ import com.intellij.testFramework.LightVirtualFile;
 import com.intellij.util.EventDispatcher;
 import com.intellij.util.PathUtil;
 import com.intellij.util.SmartList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import org.dartlang.analysis.server.protocol.*;
 import org.jetbrains.annotations.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class DartServerData {
   public interface OutlineListener extends EventListener {
@@ -32,7 +34,8 @@ public final class DartServerData {
   private final EventDispatcher<OutlineListener> myEventDispatcher = EventDispatcher.create(OutlineListener.class);
 
   private final Map<DartFileInfo, List<DartError>> myErrorData = Collections.synchronizedMap(new HashMap<>());
-  private final Map<DartFileInfo, List<DartHighlightRegion>> myHighlightData = Collections.synchronizedMap(new HashMap<>());
+  // the biggest data, stored in a compact form and updated without walking all regions on each typed character
+  private final Map<DartFileInfo, DartHighlightRegionStore> myHighlightData = new ConcurrentHashMap<>();
   private final Map<DartFileInfo, List<DartNavigationRegion>> myNavigationData = Collections.synchronizedMap(new HashMap<>());
   private final Map<DartFileInfo, List<DartOverrideMember>> myOverrideData = Collections.synchronizedMap(new HashMap<>());
   private final Map<DartFileInfo, List<DartRegion>> myImplementedClassData = Collections.synchronizedMap(new HashMap<>());
@@ -94,18 +97,22 @@ public final class DartServerData {
   void computedHighlights(@NotNull DartFileInfo fileInfo, @NotNull List<? extends HighlightRegion> regions) {
     if (myLocalFilesWithUnsentChanges.contains(fileInfo)) return;
 
-    List<DartHighlightRegion> newRegions = new ArrayList<>(regions.size());
+    IntArrayList offsets = new IntArrayList(regions.size());
+    IntArrayList lengths = new IntArrayList(regions.size());
+    List<String> types = new ArrayList<>(regions.size());
     VirtualFile file = fileInfo.findFile();
 
     for (HighlightRegion region : regions) {
       if (region.getLength() > 0) {
         final int offset = myService.getConvertedOffset(file, region.getOffset());
         final int length = myService.getConvertedOffset(file, region.getOffset() + region.getLength()) - offset;
-        newRegions.add(new DartHighlightRegion(offset, length, region.getType()));
+        offsets.add(offset);
+        lengths.add(length);
+        types.add(region.getType());
       }
     }
 
-    myHighlightData.put(fileInfo, newRegions);
+    myHighlightData.put(fileInfo, new DartHighlightRegionStore(offsets.toIntArray(), lengths.toIntArray(), types));
     forceFileAnnotation(file, false);
   }
 
@@ -295,8 +302,8 @@ public final class DartServerData {
   @NotNull
   List<DartHighlightRegion> getHighlight(@NotNull VirtualFile file) {
     DartFileInfo fileInfo = DartFileInfoKt.getDartFileInfo(myService.getProject(), file);
-    List<DartHighlightRegion> regions = myHighlightData.get(fileInfo);
-    return regions != null ? regions : Collections.emptyList();
+    DartHighlightRegionStore regions = myHighlightData.get(fileInfo);
+    return regions != null ? regions.getRegions() : Collections.emptyList();
   }
 
   @NotNull
@@ -443,7 +450,10 @@ public final class DartServerData {
     if (regionsUpdated) {
       myLocalFilesWithOutdatedErrorInfo.add(localFileInfo);
     }
-    updateRegionsUpdatingTouched(myHighlightData.get(localFileInfo), e);
+    DartHighlightRegionStore highlightRegions = myHighlightData.get(localFileInfo);
+    if (highlightRegions != null) {
+      highlightRegions.onDocumentChanged(e.getOffset(), e.getNewLength() - e.getOldLength());
+    }
     updateRegionsDeletingTouched(localFileInfo, myNavigationData.get(localFileInfo), e);
     updateRegionsDeletingTouched(localFileInfo, myOverrideData.get(localFileInfo), e);
     updateRegionsDeletingTouched(localFileInfo, myImplementedClassData.get(localFileInfo), e);
@@ -507,44 +517,6 @@ public final class DartServerData {
     return regionUpdated;
   }
 
-  private static void updateRegionsUpdatingTouched(final @Nullable List<? extends DartRegion> regions,
-                                                   final @NotNull DocumentEvent e) {
-    if (regions == null) return;
-
-    final int eventOffset = e.getOffset();
-    final int deltaLength = e.getNewLength() - e.getOldLength();
-
-    final Iterator<? extends DartRegion> iterator = regions.iterator();
-    while (iterator.hasNext()) {
-      final DartRegion region = iterator.next();
-
-      if (deltaLength > 0) {
-        // Something was typed. Shift untouched regions, update touched.
-        if (eventOffset <= region.myOffset) {
-          region.myOffset += deltaLength;
-        }
-        else if (eventOffset < region.myOffset + region.myLength) {
-          region.myLength += deltaLength;
-        }
-      }
-      else if (deltaLength < 0) {
-        // Some text was deleted. Shift untouched regions, delete or update touched.
-        final int eventRightOffset = eventOffset - deltaLength;
-        final int regionRightOffset = region.myOffset + region.myLength;
-
-        if (eventRightOffset <= region.myOffset) {
-          region.myOffset += deltaLength;
-        }
-        else if (region.myOffset <= eventOffset && eventRightOffset <= regionRightOffset && region.myLength != -deltaLength) {
-          region.myLength += deltaLength;
-        }
-        else if (eventOffset < regionRightOffset) {
-          iterator.remove();
-        }
-      }
-    }
-  }
-
   public static class DartRegion {
     protected int myOffset;
     protected int myLength;
@@ -576,9 +548,9 @@ public final class DartServerData {
   public static final class DartHighlightRegion extends DartRegion {
     private final String type;
 
-    private DartHighlightRegion(final int offset, final int length, final @NotNull String type) {
+    DartHighlightRegion(final int offset, final int length, final @NotNull String type) {
       super(offset, length);
-      this.type = type.intern();
+      this.type = type;
     }
 
     public String getType() {
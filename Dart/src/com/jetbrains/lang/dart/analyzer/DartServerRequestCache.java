@@ -0,0 +1,137 @@
+// Copyright 2000-2025 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical requests to the Analysis Server (like the ones that caret moves, tooltips and Ctrl+hover issue for the same place)
+ * and keeps their results for a short time.
+ * <p>
+ * A request is identified by its {@link Key}. Callers asking for the same key share one server round-trip, each of them gets its own
+ * future. The server request is cancelled only when all of its callers have cancelled their futures.
+ * <p>
+ * Results may depend on other files as well, so the whole cache is dropped on any document change and on flushed results.
+ */
+final class DartServerRequestCache {
+  private static final Logger LOG = Logger.getInstance(DartServerRequestCache.class);
+
+  private static final long EXPIRATION_MILLIS = 3000;
+  private static final int MAX_SIZE = 100;
+
+  record Key(@NotNull String method, @NotNull String fileUri, int offset, int length, long documentStamp) {
+  }
+
+  private static final class Entry<T> {
+    private final @NotNull CompletableFuture<T> myFuture;
+    private final long myCreationTime = System.currentTimeMillis();
+    private int mySubscribers; // guarded by DartServerRequestCache.this
+
+    private Entry(@NotNull CompletableFuture<T> future) {
+      myFuture = future;
+    }
+
+    private boolean isValid() {
+      return !myFuture.isCancelled() && System.currentTimeMillis() - myCreationTime < EXPIRATION_MILLIS;
+    }
+  }
+
+  // guarded by this
+  private final Map<Key, Entry<?>> myEntries = new HashMap<>();
+  private long myHits;
+  private long myMisses;
+
+  /**
+   * Returns a future for the result of the request identified by {@code key}, {@code request} is called only if there's no valid cached
+   * or in-flight request with the same key. Cancelling the returned future doesn't affect other callers.
+   */
+  <T> @NotNull CompletableFuture<T> get(final @NotNull Key key, final @NotNull Supplier<? extends CompletableFuture<T>> request) {
+    Entry<T> entry;
+    synchronized (this) {
+      entry = getValidEntry(key);
+      if (entry != null) {
+        entry.mySubscribers++;
+        myHits++;
+        logHitRatio(key, true);
+        return subscribe(key, entry);
+      }
+    }
+
+    // do not send the request under lock
+    final CompletableFuture<T> future = request.get();
+
+    synchronized (this) {
+      myMisses++;
+      logHitRatio(key, false);
+
+      entry = getValidEntry(key);
+      if (entry == null) {
+        if (myEntries.size() >= MAX_SIZE) {
+          myEntries.values().removeIf(e -> !e.isValid());
+          if (myEntries.size() >= MAX_SIZE) {
+            myEntries.clear();
+          }
+        }
+
+        entry = new Entry<>(future);
+        myEntries.put(key, entry);
+      }
+      else {
+        // an identical request has been sent by another thread in the meantime, so this one is not shared
+        entry = new Entry<>(future);
+      }
+      entry.mySubscribers++;
+      return subscribe(key, entry);
+    }
+  }
+
+  /**
+   * Forgets all results and in-flight requests, the latter are still delivered to the callers that are waiting for them.
+   */
+  synchronized void clear() {
+    myEntries.clear();
+  }
+
+  @SuppressWarnings("unchecked")
+  private <T> Entry<T> getValidEntry(final @NotNull Key key) {
+    final Entry<T> entry = (Entry<T>)myEntries.get(key);
+    if (entry == null) return null;
+    if (entry.isValid()) return entry;
+
+    myEntries.remove(key);
+    return null;
+  }
+
+  private <T> @NotNull CompletableFuture<T> subscribe(final @NotNull Key key, final @NotNull Entry<T> entry) {
+    final CompletableFuture<T> result = entry.myFuture.copy();
+    result.whenComplete((r, t) -> {
+      if (result.isCancelled()) {
+        unsubscribe(key, entry);
+      }
+    });
+    return result;
+  }
+
+  private <T> void unsubscribe(final @NotNull Key key, final @NotNull Entry<T> entry) {
+    synchronized (this) {
+      if (--entry.mySubscribers > 0 || entry.myFuture.isDone()) return;
+      myEntries.remove(key, entry);
+    }
+
+    // nobody waits for the result anymore, cancel the server request
+    entry.myFuture.cancel(false);
+  }
+
+  private void logHitRatio(final @NotNull Key key, final boolean hit) {
+    if (LOG.isDebugEnabled()) {
+      final long total = myHits + myMisses;
+      LOG.debug(key.method() + " cache " + (hit ? "hit" : "miss") + " (" + key.fileUri() + "), hit ratio: " + myHits + "/" + total +
+                " (" + (myHits * 100 / total) + "%)");
+    }
+  }
+}
@@ -1,70 +1,115 @@
 // Copyright 2000-2024 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
 package com.jetbrains.lang.dart.coverage;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.*;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
-public class DartCoverageData {
-  private @Nullable List<DartFileCoverageData> coverage;
+/**
+ * Line hits of a coverage session file merged by source URI. The file is read as a stream, so that a huge file doesn't need
+ * to be kept in memory as a JSON tree or as boxed line numbers.
+ */
+public final class DartCoverageData {
+  public static final int NO_DATA = -1;
 
-  public @Nullable List<DartFileCoverageData> getCoverage() {
-    return coverage;
-  }
+  // source URI -> hit count by line number, NO_DATA for lines without data
+  private final Map<String, int[]> myLineHits = new HashMap<>();
 
-  public void setCoverage(@Nullable List<DartFileCoverageData> coverage) {
-    this.coverage = coverage;
+  private DartCoverageData() {
   }
 
-  public @NotNull Map<String, SortedMap<Integer, Integer>> getMergedDartFileCoverageData() {
-    Map<String, SortedMap<Integer, Integer>> mergedCoverageData = new HashMap<>();
-    List<DartFileCoverageData> coverageData = getCoverage();
-    if (coverageData != null) {
-      for (DartFileCoverageData item : coverageData) {
-        String source = item.getSource();
-        if (source == null) {
-          continue;
-        }
-        SortedMap<Integer, Integer> fileData = mergedCoverageData.computeIfAbsent(source, k -> new TreeMap<>());
-        List<Integer> hits = item.getHits();
-        if (hits == null) {
-          continue;
-        }
-        for (int i = 0; i < hits.size(); i += 2) {
-          Integer lineNumber = hits.get(i);
-          Integer hitCount = hits.get(i + 1);
-          if (!fileData.containsKey(lineNumber)) {
-            fileData.put(lineNumber, 0);
-          }
+  /**
+   * Reads JSON like {"coverage": [{"source": "package:foo/foo.dart", "hits": [line1, hitCount1, line2, hitCount2, ...]}, ...]}.
+   * Hits of the items with the same source are summed up.
+   *
+   * @return {@code null} if the input is empty
+   */
+  public static @Nullable DartCoverageData read(final @NotNull Reader input) throws IOException {
+    final JsonReader reader = new JsonReader(input);
+    try {
+      reader.peek();
+    }
+    catch (EOFException e) {
+      return null;
+    }
 
-          fileData.put(lineNumber, fileData.get(lineNumber) + hitCount);
+    final DartCoverageData data = new DartCoverageData();
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if ("coverage".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+        reader.beginArray();
+        while (reader.hasNext()) {
+          data.readFileCoverage(reader);
         }
+        reader.endArray();
+      }
+      else {
+        reader.skipValue();
       }
     }
-
-    return mergedCoverageData;
+    reader.endObject();
+    return data;
   }
-}
 
+  private void readFileCoverage(final @NotNull JsonReader reader) throws IOException {
+    String source = null;
+    // [line1, hitCount1, line2, hitCount2, ...], buffered because "source" may follow "hits"
+    int[] hits = null;
+    int hitsSize = 0;
 
-class DartFileCoverageData {
-  private @Nullable String source;
-  private @Nullable List<Integer> hits;
+    reader.beginObject();
+    while (reader.hasNext()) {
+      final String name = reader.nextName();
+      if ("source".equals(name) && reader.peek() == JsonToken.STRING) {
+        source = reader.nextString();
+      }
+      else if ("hits".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+        hits = new int[64];
+        reader.beginArray();
+        while (reader.hasNext()) {
+          if (hitsSize == hits.length) {
+            hits = Arrays.copyOf(hits, hitsSize * 2);
+          }
+          hits[hitsSize++] = reader.nextInt();
+        }
+        reader.endArray();
+      }
+      else {
+        reader.skipValue();
+      }
+    }
+    reader.endObject();
 
-  public @Nullable String getSource() {
-    return source;
-  }
+    if (source == null) return;
 
-  public void setSource(@Nullable String source) {
-    this.source = source;
-  }
+    int[] lineHits = myLineHits.computeIfAbsent(source, k -> new int[0]);
+    for (int i = 0; i + 1 < hitsSize; i += 2) {
+      final int line = hits[i];
+      final int hitCount = hits[i + 1];
+      if (line < 0) continue;
 
-  public @Nullable List<Integer> getHits() {
-    return hits;
+      if (line >= lineHits.length) {
+        final int oldLength = lineHits.length;
+        lineHits = Arrays.copyOf(lineHits, Math.max(line + 1, oldLength * 2));
+        Arrays.fill(lineHits, oldLength, lineHits.length, NO_DATA);
+        myLineHits.put(source, lineHits);
+      }
+      lineHits[line] = lineHits[line] == NO_DATA ? hitCount : lineHits[line] + hitCount;
+    }
   }
 
-  public void setHits(@Nullable List<Integer> hits) {
-    this.hits = hits;
+  /**
+   * @return source URI -> hit count by line number, {@link #NO_DATA} for lines without data. Arrays may have trailing {@link #NO_DATA}.
+   */
+  public @NotNull Map<String, int[]> getMergedLineHits() {
+    return myLineHits;
   }
-}
\ No newline at end of file
+}
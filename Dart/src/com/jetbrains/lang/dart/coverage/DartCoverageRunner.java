@@ -1,8 +1,7 @@
 // Copyright 2000-2024 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
 package com.jetbrains.lang.dart.coverage;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.coverage.CoverageEngine;
 import com.intellij.coverage.CoverageLoadErrorReporter;
 import com.intellij.coverage.CoverageRunner;
@@ -13,6 +12,7 @@ import com.intellij.coverage.SuccessCoverageLoadingResult;
 import com.intellij.execution.process.ProcessHandler;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Ref;
@@ -32,8 +32,10 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Map;
-import java.util.SortedMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class DartCoverageRunner extends CoverageRunner {
   private static final String ID = "DartCoverageRunner";
@@ -107,18 +109,23 @@ public final class DartCoverageRunner extends CoverageRunner {
     final ProjectData projectData = new ProjectData();
 
     try {
-      DartCoverageData data =
-        new Gson().fromJson(new BufferedReader(new FileReader(sessionDataFile, StandardCharsets.UTF_8)), DartCoverageData.class);
+      DartCoverageData data;
+      try (BufferedReader reader = new BufferedReader(new FileReader(sessionDataFile, StandardCharsets.UTF_8))) {
+        data = DartCoverageData.read(reader);
+      }
       if (data == null) {
         String message = "Coverage file does not contain valid data.";
         LOG.warn(message);
         return new FailedCoverageLoadingResult(message);
       }
 
-      for (Map.Entry<String, SortedMap<Integer, Integer>> entry : data.getMergedDartFileCoverageData().entrySet()) {
+      final Map<String, int[]> mergedLineHits = data.getMergedLineHits();
+      final Map<String, String> uriToFilePath = mapUrisToFilePaths(project, contextId, mergedLineHits.keySet());
+
+      for (Map.Entry<String, int[]> entry : mergedLineHits.entrySet()) {
         ProgressManager.checkCanceled();
 
-        String filePath = getFileForUri(project, contextId, entry.getKey());
+        String filePath = uriToFilePath.get(entry.getKey());
         if (filePath == null) {
           // File is not found.
           String message = "Could not find source: " + entry.getKey();
@@ -126,22 +133,28 @@ public final class DartCoverageRunner extends CoverageRunner {
           reporter.reportWarning(message, null);
           continue;
         }
-        SortedMap<Integer, Integer> lineHits = entry.getValue();
+        int[] lineHits = entry.getValue();
+        int lastLine = lineHits.length - 1;
+        while (lastLine >= 0 && lineHits[lastLine] == DartCoverageData.NO_DATA) {
+          lastLine--;
+        }
+
         ClassData classData = projectData.getOrCreateClassData(filePath);
-        if (lineHits.isEmpty()) {
+        if (lastLine < 0) {
           classData.setLines(new LineData[1]);
           continue;
         }
-        LineData[] lines = new LineData[lineHits.lastKey() + 1];
-        for (Map.Entry<Integer, Integer> hit : lineHits.entrySet()) {
-          LineData lineData = new LineData(hit.getKey(), null);
-          lineData.setHits(hit.getValue());
-          lines[hit.getKey()] = lineData;
+        LineData[] lines = new LineData[lastLine + 1];
+        for (int line = 0; line <= lastLine; line++) {
+          if (lineHits[line] == DartCoverageData.NO_DATA) continue;
+          LineData lineData = new LineData(line, null);
+          lineData.setHits(lineHits[line]);
+          lines[line] = lineData;
         }
         classData.setLines(lines);
       }
     }
-    catch (JsonSyntaxException | IOException e) {
+    catch (IllegalStateException | NumberFormatException | IOException e) {
       LOG.warn(e);
       reporter.reportWarning(e);
     }
@@ -151,6 +164,24 @@ public final class DartCoverageRunner extends CoverageRunner {
     return new SuccessCoverageLoadingResult(projectData);
   }
 
+  /**
+   * Each URI is mapped by a separate Analysis Server request, so the requests are sent concurrently.
+   */
+  private static @NotNull Map<String, String> mapUrisToFilePaths(final @NotNull Project project,
+                                                                 final @NotNull String contextId,
+                                                                 final @NotNull Collection<String> uris) {
+    final Map<String, String> result = new ConcurrentHashMap<>();
+    final ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+    JobLauncher.getInstance().invokeConcurrentlyUnderProgress(new ArrayList<>(uris), indicator, uri -> {
+      String filePath = getFileForUri(project, contextId, uri);
+      if (filePath != null) {
+        result.put(uri, filePath);
+      }
+      return true;
+    });
+    return result;
+  }
+
   private static @Nullable String getFileForUri(final @NotNull Project project, final @NotNull String contextId, final @NotNull String uri) {
     if (uri.startsWith("dart:_") || uri.startsWith("dart:") && uri.contains("-patch/")) {
       // dart:_builtin or dart:core-patch/core_patch.dart
@@ -13,13 +13,13 @@ import java.io.IOException;
 
 public class DartComponentInfoExternalizer implements DataExternalizer<DartComponentInfo> {
 
+  // component type and presence of the library name are packed into a single varint: (componentTypeKey + 1) << 1 | hasLibraryName
   @Override
   public void save(final @NotNull DataOutput out, final @NotNull DartComponentInfo componentInfo) throws IOException {
     final DartComponentType dartComponentType = componentInfo.getComponentType();
     final int key = dartComponentType == null ? -1 : dartComponentType.getKey();
-    DataInputOutputUtil.writeINT(out, key);
     final String libraryName = componentInfo.getLibraryName();
-    out.writeBoolean(libraryName != null);
+    DataInputOutputUtil.writeINT(out, (key + 1) << 1 | (libraryName != null ? 1 : 0));
     if (libraryName != null) {
       IOUtil.writeUTF(out, libraryName);
     }
@@ -27,8 +27,9 @@ public class DartComponentInfoExternalizer implements DataExternalizer<DartCompo
 
   @Override
   public DartComponentInfo read(@NotNull DataInput in) throws IOException {
-    final int componentTypeKey = DataInputOutputUtil.readINT(in);
-    final boolean hasLibraryName = in.readBoolean();
+    final int header = DataInputOutputUtil.readINT(in);
+    final int componentTypeKey = (header >>> 1) - 1;
+    final boolean hasLibraryName = (header & 1) != 0;
     final String libraryName = hasLibraryName ? IOUtil.readUTF(in) : null;
     return new DartComponentInfo(DartComponentType.valueOf(componentTypeKey), libraryName);
   }
@@ -19,7 +19,7 @@ import static com.jetbrains.lang.dart.ide.index.DartImportOrExportInfo.Kind;
 
 public final class DartIndexUtil {
   // inc when change parser
-  public static final int INDEX_VERSION = 27;
+  public static final int INDEX_VERSION = 28;
 
   private static final Key<DartFileIndexData> ourDartCachesData = Key.create("dart.caches.index.data");
 
@@ -31,6 +31,8 @@ public final class DartIndexUtil {
       indexData = content.getUserData(ourDartCachesData);
       if (indexData != null) return indexData;
       indexData = indexFileRoots(content.getPsiFile());
+      // all Dart indexes are built from the same data, walk the PSI only once per file
+      content.putUserData(ourDartCachesData, indexData);
     }
 
     return indexData;
@@ -18,6 +18,20 @@ public final class VmServiceConsumers {
     }
   };
 
+  public static final GetObjectConsumer EMPTY_GET_OBJECT_CONSUMER = new GetObjectConsumer() {
+    @Override
+    public void received(Obj response) {
+    }
+
+    @Override
+    public void received(Sentinel response) {
+    }
+
+    @Override
+    public void onError(RPCError error) {
+    }
+  };
+
   private abstract static class ConsumerWrapper implements Consumer {
     @Override
     public void onError(RPCError error) {
@@ -0,0 +1,121 @@
+// Copyright 2000-2025 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import com.intellij.openapi.diagnostic.Logger;
+import org.dartlang.vm.service.consumer.GetObjectConsumer;
+import org.dartlang.vm.service.element.Obj;
+import org.dartlang.vm.service.element.RPCError;
+import org.dartlang.vm.service.element.Sentinel;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Responses to {@code getObject} requests received while an isolate is paused. Expanding the same values in the Variables view,
+ * Watches and tooltips asks for the same objects again and again, and concurrent identical requests share a single round-trip.
+ * <p>
+ * Objects may change once the isolate runs any code, so the responses for an isolate are dropped when it resumes
+ * and when an expression is evaluated in it. A response to a request sent before that is delivered, but not cached.
+ * Errors are not cached.
+ */
+final class VmServiceObjectCache {
+  private static final Logger LOG = Logger.getInstance(VmServiceObjectCache.class);
+
+  private record Key(@NotNull String isolateId, @NotNull String objectId, int offset, int count) {
+  }
+
+  private record Response(@Nullable Obj obj, @Nullable Sentinel sentinel, @Nullable RPCError error) {
+    void deliver(final @NotNull GetObjectConsumer consumer) {
+      if (obj != null) {
+        consumer.received(obj);
+      }
+      else if (sentinel != null) {
+        consumer.received(sentinel);
+      }
+      else {
+        consumer.onError(error);
+      }
+    }
+  }
+
+  private static final class PauseStatistics {
+    private final AtomicInteger myRoundTrips = new AtomicInteger();
+    private final AtomicInteger myCacheHits = new AtomicInteger();
+  }
+
+  private final Map<Key, CompletableFuture<Response>> myResponses = new ConcurrentHashMap<>();
+  private final Map<String, PauseStatistics> myStatistics = new ConcurrentHashMap<>();
+  // isolate id -> number of times its responses have been dropped
+  private final Map<String, Integer> myGenerations = new ConcurrentHashMap<>();
+
+  /**
+   * Delivers the cached response to the {@code consumer} or calls {@code sender} to request the object from the VM.
+   * {@code offset} and {@code count} are -1 if the whole object is requested.
+   */
+  void getObject(final @NotNull String isolateId,
+                 final @NotNull String objectId,
+                 final int offset,
+                 final int count,
+                 final @NotNull GetObjectConsumer consumer,
+                 final @NotNull Consumer<GetObjectConsumer> sender) {
+    final Key key = new Key(isolateId, objectId, offset, count);
+    final int generation = getGeneration(isolateId);
+    final CompletableFuture<Response> newFuture = new CompletableFuture<>();
+    final CompletableFuture<Response> future = myResponses.putIfAbsent(key, newFuture);
+    final PauseStatistics statistics = myStatistics.computeIfAbsent(isolateId, id -> new PauseStatistics());
+
+    if (future != null) {
+      statistics.myCacheHits.incrementAndGet();
+      future.thenAccept(response -> response.deliver(consumer));
+      return;
+    }
+
+    statistics.myRoundTrips.incrementAndGet();
+    newFuture.thenAccept(response -> response.deliver(consumer));
+    sender.accept(new GetObjectConsumer() {
+      @Override
+      public void received(Obj response) {
+        forgetIfOutdated(key, newFuture, generation);
+        newFuture.complete(new Response(response, null, null));
+      }
+
+      @Override
+      public void received(Sentinel response) {
+        forgetIfOutdated(key, newFuture, generation);
+        newFuture.complete(new Response(null, response, null));
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        myResponses.remove(key, newFuture);
+        newFuture.complete(new Response(null, null, error));
+      }
+    });
+  }
+
+  private int getGeneration(final @NotNull String isolateId) {
+    return myGenerations.getOrDefault(isolateId, 0);
+  }
+
+  private void forgetIfOutdated(final @NotNull Key key, final @NotNull CompletableFuture<Response> future, final int generation) {
+    if (getGeneration(key.isolateId()) != generation) {
+      myResponses.remove(key, future);
+    }
+  }
+
+  void clear(final @NotNull String isolateId) {
+    myGenerations.merge(isolateId, 1, Integer::sum);
+    myResponses.keySet().removeIf(key -> key.isolateId().equals(isolateId));
+
+    final PauseStatistics statistics = myStatistics.remove(isolateId);
+    if (statistics != null && LOG.isDebugEnabled()) {
+      LOG.debug("Isolate " + isolateId + ": " + statistics.myRoundTrips.get() + " getObject round-trips, " +
+                statistics.myCacheHits.get() + " served from cache");
+    }
+  }
+}
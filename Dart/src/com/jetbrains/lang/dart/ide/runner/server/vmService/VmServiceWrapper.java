@@ -42,6 +42,8 @@ public class VmServiceWrapper implements Disposable {
 
   public static final Logger LOG = Logger.getInstance(VmServiceWrapper.class.getName());
   private static final long RESPONSE_WAIT_TIMEOUT = 3000; // millis
+  // variables of these top frames are fetched as soon as the stack is received, the top frame is usually expanded right away
+  private static final int PREFETCH_FRAME_COUNT = 1;
 
   private final DartVmServiceDebugProcess myDebugProcess;
   private final VmService myVmService;
@@ -49,6 +51,7 @@ public class VmServiceWrapper implements Disposable {
   private final IsolatesInfo myIsolatesInfo;
   private final DartVmServiceBreakpointHandler myBreakpointHandler;
   private final Alarm myRequestsScheduler;
+  private final VmServiceObjectCache myObjectCache = new VmServiceObjectCache();
 
   private long myVmServiceReceiverThreadId;
 
@@ -529,6 +532,8 @@ public class VmServiceWrapper implements Disposable {
 
   public void resumeIsolate(@NotNull String isolateId, @Nullable StepOption stepOption) {
     addRequest(() -> {
+      // queued, so that objects requested before resuming are not cached after the cache is cleared
+      clearObjectCache(isolateId);
       myLatestStep = stepOption;
       myVmService.resume(isolateId, stepOption, null, new VmServiceConsumers.EmptyResumeConsumer() {
       });
@@ -619,6 +624,12 @@ public class VmServiceWrapper implements Disposable {
           final List<Frame> vmFrames = Lists.newArrayList(elementList);
           final List<XStackFrame> xStackFrames = new ArrayList<>(vmFrames.size());
 
+          if (firstFrameIndex == 0) {
+            for (int i = 0; i < Math.min(PREFETCH_FRAME_COUNT, vmFrames.size()); i++) {
+              prefetchVariables(isolateId, vmFrames.get(i));
+            }
+          }
+
           for (final Frame vmFrame : vmFrames) {
             if (vmFrame.getKind() == FrameKind.AsyncSuspensionMarker) {
               // Render an asynchronous gap.
@@ -686,7 +697,8 @@ public class VmServiceWrapper implements Disposable {
   }
 
   public void getObject(@NotNull String isolateId, @NotNull String objectId, @NotNull GetObjectConsumer consumer) {
-    addRequest(() -> myVmService.getObject(isolateId, objectId, consumer));
+    addRequest(() -> myObjectCache.getObject(isolateId, objectId, -1, -1, consumer,
+                                             c -> myVmService.getObject(isolateId, objectId, c)));
   }
 
   public void getCollectionObject(@NotNull String isolateId,
@@ -694,36 +706,59 @@ public class VmServiceWrapper implements Disposable {
                                   int offset,
                                   int count,
                                   @NotNull GetObjectConsumer consumer) {
-    addRequest(() -> myVmService.getObject(isolateId, objectId, offset, count, consumer));
+    addRequest(() -> myObjectCache.getObject(isolateId, objectId, offset, count, consumer,
+                                             c -> myVmService.getObject(isolateId, objectId, offset, count, c)));
+  }
+
+  /**
+   * Objects received before are not valid anymore once the isolate has run some code.
+   */
+  public void clearObjectCache(@NotNull String isolateId) {
+    myObjectCache.clear(isolateId);
+  }
+
+  private void prefetchVariables(@NotNull String isolateId, @NotNull Frame vmFrame) {
+    final ElementList<BoundVariable> vars = vmFrame.getVars();
+    if (vars == null) return;
+
+    for (BoundVariable var : vars) {
+      if (var.getValue() instanceof InstanceRef instanceRef && instanceRef.getKind() == InstanceKind.PlainInstance) {
+        getObject(isolateId, instanceRef.getId(), VmServiceConsumers.EMPTY_GET_OBJECT_CONSUMER);
+      }
+    }
   }
 
   public void evaluateInFrame(@NotNull String isolateId,
                               @NotNull Frame vmFrame,
                               @NotNull String expression,
                               @NotNull XDebuggerEvaluator.XEvaluationCallback callback) {
-    addRequest(() -> myVmService.evaluateInFrame(isolateId, vmFrame.getIndex(), expression, new EvaluateInFrameConsumer() {
-      @Override
-      public void received(InstanceRef instanceRef) {
-        callback.evaluated(new DartVmServiceValue(myDebugProcess, isolateId, "result", instanceRef, null, null, false));
-      }
+    addRequest(() -> {
+      // the expression may change the state of any object
+      clearObjectCache(isolateId);
+      myVmService.evaluateInFrame(isolateId, vmFrame.getIndex(), expression, new EvaluateInFrameConsumer() {
+        @Override
+        public void received(InstanceRef instanceRef) {
+          callback.evaluated(new DartVmServiceValue(myDebugProcess, isolateId, "result", instanceRef, null, null, false));
+        }
 
-      @Override
-      public void received(Sentinel sentinel) {
-        @NlsSafe String message = sentinel.getValueAsString();
-        callback.errorOccurred(message);
-      }
+        @Override
+        public void received(Sentinel sentinel) {
+          @NlsSafe String message = sentinel.getValueAsString();
+          callback.errorOccurred(message);
+        }
 
-      @Override
-      public void received(ErrorRef errorRef) {
-        callback.errorOccurred(DartVmServiceEvaluator.getPresentableError(errorRef.getMessage()));
-      }
+        @Override
+        public void received(ErrorRef errorRef) {
+          callback.errorOccurred(DartVmServiceEvaluator.getPresentableError(errorRef.getMessage()));
+        }
 
-      @Override
-      public void onError(RPCError error) {
-        @NlsSafe String message = error.getMessage();
-        callback.errorOccurred(message);
-      }
-    }));
+        @Override
+        public void onError(RPCError error) {
+          @NlsSafe String message = error.getMessage();
+          callback.errorOccurred(message);
+        }
+      });
+    });
   }
 
   @SuppressWarnings("SameParameterValue")
@@ -738,28 +773,32 @@ public class VmServiceWrapper implements Disposable {
                                       @NotNull String targetId,
                                       @NotNull String expression,
                                       @NotNull XDebuggerEvaluator.XEvaluationCallback callback) {
-    evaluateInTargetContext(isolateId, targetId, expression, new EvaluateConsumer() {
-      @Override
-      public void received(InstanceRef instanceRef) {
-        callback.evaluated(new DartVmServiceValue(myDebugProcess, isolateId, "result", instanceRef, null, null, false));
-      }
+    addRequest(() -> {
+      // the expression may change the state of any object
+      clearObjectCache(isolateId);
+      myVmService.evaluate(isolateId, targetId, expression, new EvaluateConsumer() {
+        @Override
+        public void received(InstanceRef instanceRef) {
+          callback.evaluated(new DartVmServiceValue(myDebugProcess, isolateId, "result", instanceRef, null, null, false));
+        }
 
-      @Override
-      public void received(Sentinel sentinel) {
-        @NlsSafe String message = sentinel.getValueAsString();
-        callback.errorOccurred(message);
-      }
+        @Override
+        public void received(Sentinel sentinel) {
+          @NlsSafe String message = sentinel.getValueAsString();
+          callback.errorOccurred(message);
+        }
 
-      @Override
-      public void received(ErrorRef errorRef) {
-        callback.errorOccurred(DartVmServiceEvaluator.getPresentableError(errorRef.getMessage()));
-      }
+        @Override
+        public void received(ErrorRef errorRef) {
+          callback.errorOccurred(DartVmServiceEvaluator.getPresentableError(errorRef.getMessage()));
+        }
 
-      @Override
-      public void onError(RPCError error) {
-        @NlsSafe String message = error.getMessage();
-        callback.errorOccurred(message);
-      }
+        @Override
+        public void onError(RPCError error) {
+          @NlsSafe String message = error.getMessage();
+          callback.errorOccurred(message);
+        }
+      });
     });
   }
 
@@ -12,12 +12,17 @@ import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.roots.impl.libraries.LibraryEx;
 import com.intellij.openapi.roots.libraries.LibraryProperties;
 import com.intellij.openapi.roots.libraries.LibraryTablesRegistrar;
+import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.SystemInfo;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
 import com.intellij.openapi.vfs.ex.temp.TempFileSystem;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.util.PairConsumer;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
 import com.jetbrains.lang.dart.ide.index.DartLibraryIndex;
@@ -29,24 +34,48 @@ import org.jetbrains.annotations.Nullable;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class DartUrlResolverImpl extends DartUrlResolver {
   // TODO Fold into superclass.
 
+  // Live packages built from package_config.json or .packages file of each pubspec.yaml. Resolvers are created very often,
+  // so the maps are shared until the packages file changes, or until VFS structure or project roots change.
+  private static final Key<CachedValue<Map<VirtualFile, LivePackages>>> LIVE_PACKAGES_CACHE_KEY = Key.create("DART_LIVE_PACKAGES_CACHE");
+
+  /**
+   * @param stamp identifies the packages file content the maps were built from, {@code null} if they were not built from a packages file
+   */
+  private record LivePackages(@NotNull Map<String, VirtualFile> nameToDir,
+                              @NotNull Map<VirtualFile, String> dirToName,
+                              @Nullable Object stamp) {
+    private static final LivePackages EMPTY = new LivePackages(Collections.emptyMap(), Collections.emptyMap(), null);
+
+    private static @NotNull LivePackages create(final @NotNull Map<String, VirtualFile> nameToDir, final @Nullable Object stamp) {
+      final Map<VirtualFile, String> dirToName = new HashMap<>(nameToDir.size());
+      for (Map.Entry<String, VirtualFile> entry : nameToDir.entrySet()) {
+        dirToName.putIfAbsent(entry.getValue(), entry.getKey());
+      }
+      return new LivePackages(Collections.unmodifiableMap(nameToDir), dirToName, stamp);
+    }
+  }
+
   private final @NotNull Project myProject;
   private final @Nullable DartSdk myDartSdk;
   private final @Nullable VirtualFile myPubspecYamlFile;
-  // myLivePackageNameToDirMap also contains packages map from .packages file if applicable
-  private final @NotNull Map<String, VirtualFile> myLivePackageNameToDirMap = new HashMap<>();
+  // myLivePackages also contains packages map from .packages file if applicable
+  private final @NotNull LivePackages myLivePackages;
   // myPackagesMapFromLib is not empty only if pubspec.yaml file is null
   private final @NotNull Map<String, List<String>> myPackagesMapFromLib = new HashMap<>();
+  // package dir path -> package name, built lazily from myPackagesMapFromLib
+  private @Nullable Map<String, String> myPackageDirPathFromLibToName;
 
   public DartUrlResolverImpl(final @NotNull Project project, final @NotNull VirtualFile contextFile) {
     myProject = project;
     myDartSdk = DartSdk.getDartSdk(project);
     myPubspecYamlFile = PubspecYamlUtil.findPubspecYamlFile(myProject, contextFile);
 
-    initLivePackageNameToDirMap();
+    myLivePackages = myPubspecYamlFile == null ? LivePackages.EMPTY : getLivePackages(myProject, myDartSdk, myPubspecYamlFile);
 
     if (myPubspecYamlFile == null) {
       initPackagesMapFromLib(contextFile);
@@ -60,20 +89,20 @@ public final class DartUrlResolverImpl extends DartUrlResolver {
 
   @Override
   public void processLivePackages(final @NotNull PairConsumer<String, VirtualFile> packageNameAndDirConsumer) {
-    for (Map.Entry<String, VirtualFile> entry : myLivePackageNameToDirMap.entrySet()) {
+    for (Map.Entry<String, VirtualFile> entry : myLivePackages.nameToDir().entrySet()) {
       packageNameAndDirConsumer.consume(entry.getKey(), entry.getValue());
     }
   }
 
   @Override
   public Collection<String> getLivePackageNames() {
-    return myLivePackageNameToDirMap.keySet();
+    return myLivePackages.nameToDir().keySet();
   }
 
   @Override
   public @Nullable VirtualFile getPackageDirIfNotInOldStylePackagesFolder(final @NotNull String packageName,
                                                                           final @Nullable String pathRelToPackageDir) {
-    final VirtualFile dir = myLivePackageNameToDirMap.get(packageName);
+    final VirtualFile dir = myLivePackages.nameToDir().get(packageName);
     if (dir != null) return dir;
 
     final List<String> dirPaths = myPackagesMapFromLib.get(packageName);
@@ -113,7 +142,7 @@ public final class DartUrlResolverImpl extends DartUrlResolver {
       final String packageName = slashIndex > 0 ? packageRelPath.substring(0, slashIndex) : packageRelPath;
       final String pathRelToPackageDir = slashIndex > 0 ? packageRelPath.substring(slashIndex + 1) : "";
 
-      final VirtualFile packageDir = StringUtil.isEmpty(packageName) ? null : myLivePackageNameToDirMap.get(packageName);
+      final VirtualFile packageDir = StringUtil.isEmpty(packageName) ? null : myLivePackages.nameToDir().get(packageName);
       if (packageDir != null) {
         return packageDir.findFileByRelativePath(pathRelToPackageDir);
       }
@@ -148,11 +177,16 @@ public final class DartUrlResolverImpl extends DartUrlResolver {
     if (myDartSdk != null) result = getUrlIfFileFromSdkLib(myProject, file, myDartSdk);
     if (result != null) return result;
 
-    result = getUrlIfFileFromLivePackage(file, myLivePackageNameToDirMap);
+    result = getUrlIfFileFromLivePackage(file, myLivePackages.dirToName());
     if (result != null) return result;
 
-    result = getUrlIfFileFromDartPackagesLib(file, myPackagesMapFromLib);
-    if (result != null) return result;
+    if (!myPackagesMapFromLib.isEmpty()) {
+      if (myPackageDirPathFromLibToName == null) {
+        myPackageDirPathFromLibToName = getPackageDirPathToNameMap(myPackagesMapFromLib);
+      }
+      result = getUrlIfFileFromDartPackagesLib(file, myPackageDirPathFromLibToName);
+      if (result != null) return result;
+    }
 
     // see com.google.dart.tools.debug.core.server.ServerBreakpointManager#getAbsoluteUrlForResource()
     return new File(file.getPath()).toURI().toString();
@@ -173,67 +207,98 @@ public final class DartUrlResolverImpl extends DartUrlResolver {
              : null;
   }
 
+  /**
+   * Walks up from the file, so the innermost package dir wins and the cost doesn't depend on the number of packages.
+   */
   private static @Nullable String getUrlIfFileFromLivePackage(final @NotNull VirtualFile file,
-                                                              final @NotNull Map<String, VirtualFile> livePackageNameToDirMap) {
-    for (Map.Entry<String, VirtualFile> entry : livePackageNameToDirMap.entrySet()) {
-      final String packageName = entry.getKey();
-      final VirtualFile packageDir = entry.getValue();
-      final String relPath = VfsUtilCore.getRelativePath(file, packageDir, '/');
-      if (relPath != null) {
-        return PACKAGE_PREFIX + packageName + "/" + relPath;
+                                                              final @NotNull Map<VirtualFile, String> livePackageDirToNameMap) {
+    if (livePackageDirToNameMap.isEmpty()) return null;
+
+    for (VirtualFile dir = file; dir != null; dir = dir.getParent()) {
+      final String packageName = livePackageDirToNameMap.get(dir);
+      if (packageName != null) {
+        return PACKAGE_PREFIX + packageName + "/" + VfsUtilCore.getRelativePath(file, dir, '/');
       }
     }
     return null;
   }
 
-  private static @Nullable String getUrlIfFileFromDartPackagesLib(final @NotNull VirtualFile file,
-                                                                  final @NotNull Map<String, List<String>> pubListPackageDirsMap) {
+  private static @NotNull Map<String, String> getPackageDirPathToNameMap(final @NotNull Map<String, List<String>> pubListPackageDirsMap) {
+    final Map<String, String> result = new HashMap<>();
     for (Map.Entry<String, List<String>> mapEntry : pubListPackageDirsMap.entrySet()) {
       for (String dirPath : mapEntry.getValue()) {
-        if (file.getPath().startsWith(dirPath + "/")) {
-          final String packageName = mapEntry.getKey();
-          return PACKAGE_PREFIX + packageName + file.getPath().substring(dirPath.length());
-        }
+        result.putIfAbsent(dirPath, mapEntry.getKey());
       }
     }
-    return null;
+    return result;
   }
 
-  private void initLivePackageNameToDirMap() {
-    final VirtualFile baseDir = myPubspecYamlFile == null ? null : myPubspecYamlFile.getParent();
-    if (myPubspecYamlFile == null || baseDir == null) return;
-
-    Map<String, String> packagesMap;
-    if (myDartSdk == null || DartAnalysisServerService.isDartSdkVersionSufficientForPackageConfigJson(myDartSdk)) {
-      VirtualFile packagesFile = DotPackagesFileUtil.getPackageConfigJsonFile(myProject, myPubspecYamlFile);
-      packagesMap = packagesFile != null ? DotPackagesFileUtil.getPackagesMapFromPackageConfigJsonFile(packagesFile) : null;
-    }
-    else {
-      VirtualFile packagesFile = baseDir.findChild(DotPackagesFileUtil.DOT_PACKAGES);
-      packagesMap = packagesFile != null ? DotPackagesFileUtil.getPackagesMap(packagesFile) : null;
+  /**
+   * Looks up the longest package dir path that the file path starts with.
+   */
+  private static @Nullable String getUrlIfFileFromDartPackagesLib(final @NotNull VirtualFile file,
+                                                                  final @NotNull Map<String, String> packageDirPathToNameMap) {
+    final String filePath = file.getPath();
+    for (int slashIndex = filePath.lastIndexOf('/'); slashIndex > 0; slashIndex = filePath.lastIndexOf('/', slashIndex - 1)) {
+      final String dirPath = filePath.substring(0, slashIndex);
+      final String packageName = packageDirPathToNameMap.get(dirPath);
+      if (packageName != null) {
+        return PACKAGE_PREFIX + packageName + filePath.substring(dirPath.length());
+      }
     }
+    return null;
+  }
 
-    if (packagesMap != null) {
-      for (Map.Entry<String, String> entry : packagesMap.entrySet()) {
-        final String packageName = entry.getKey();
-        final String packagePath = entry.getValue();
-        final VirtualFile packageDir = myPubspecYamlFile.getFileSystem().findFileByPath(packagePath);
-        if (packageDir != null) {
-          myLivePackageNameToDirMap.put(packageName, packageDir);
+  private static @NotNull LivePackages getLivePackages(final @NotNull Project project,
+                                                      final @Nullable DartSdk dartSdk,
+                                                      final @NotNull VirtualFile pubspecYamlFile) {
+    final VirtualFile baseDir = pubspecYamlFile.getParent();
+    if (baseDir == null) return LivePackages.EMPTY;
+
+    final boolean packageConfigJson = dartSdk == null || DartAnalysisServerService.isDartSdkVersionSufficientForPackageConfigJson(dartSdk);
+    final VirtualFile packagesFile = packageConfigJson ? DotPackagesFileUtil.getPackageConfigJsonFile(project, pubspecYamlFile)
+                                                       : baseDir.findChild(DotPackagesFileUtil.DOT_PACKAGES);
+    if (packagesFile != null) {
+      final Map<VirtualFile, LivePackages> cache = CachedValuesManager.getManager(project).getCachedValue(
+        project, LIVE_PACKAGES_CACHE_KEY,
+        () -> CachedValueProvider.Result.create(new ConcurrentHashMap<>(), VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+                                                ProjectRootManager.getInstance(project)),
+        false);
+
+      final Object stamp = Arrays.asList(packagesFile, packagesFile.getModificationCount());
+      final LivePackages cached = cache.get(pubspecYamlFile);
+      if (cached != null && stamp.equals(cached.stamp())) return cached;
+
+      final Map<String, String> packagesMap = packageConfigJson ? DotPackagesFileUtil.getPackagesMapFromPackageConfigJsonFile(packagesFile)
+                                                                : DotPackagesFileUtil.getPackagesMap(packagesFile);
+      if (packagesMap != null) {
+        final Map<String, VirtualFile> livePackageNameToDirMap = new HashMap<>(packagesMap.size());
+        for (Map.Entry<String, String> entry : packagesMap.entrySet()) {
+          final String packageName = entry.getKey();
+          final String packagePath = entry.getValue();
+          final VirtualFile packageDir = pubspecYamlFile.getFileSystem().findFileByPath(packagePath);
+          if (packageDir != null) {
+            livePackageNameToDirMap.put(packageName, packageDir);
+          }
         }
+
+        final LivePackages livePackages = LivePackages.create(livePackageNameToDirMap, stamp);
+        cache.put(pubspecYamlFile, livePackages);
+        return livePackages;
       }
     }
-    else {
-      final String name = PubspecYamlUtil.getDartProjectName(myPubspecYamlFile);
-      final VirtualFile libFolder = baseDir.findChild(PubspecYamlUtil.LIB_DIR_NAME);
 
-      if (name != null && libFolder != null && libFolder.isDirectory()) {
-        myLivePackageNameToDirMap.put(name, libFolder);
-      }
+    // path packages depend on the content of other pubspec.yaml files, so they are not cached
+    final Map<String, VirtualFile> livePackageNameToDirMap = new HashMap<>();
+    final String name = PubspecYamlUtil.getDartProjectName(pubspecYamlFile);
+    final VirtualFile libFolder = baseDir.findChild(PubspecYamlUtil.LIB_DIR_NAME);
 
-      PubspecYamlUtil
-        .processInProjectPathPackagesRecursively(myProject, myPubspecYamlFile, myLivePackageNameToDirMap::put);
+    if (name != null && libFolder != null && libFolder.isDirectory()) {
+      livePackageNameToDirMap.put(name, libFolder);
     }
+
+    PubspecYamlUtil.processInProjectPathPackagesRecursively(project, pubspecYamlFile, livePackageNameToDirMap::put);
+    return LivePackages.create(livePackageNameToDirMap, null);
   }
 
   private void initPackagesMapFromLib(final @NotNull VirtualFile contextFile) {
@@ -0,0 +1,134 @@
+// Copyright 2000-2025 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.intellij.openapi.util.TextRange;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public class DartHighlightRegionStoreTest extends TestCase {
+
+  private static @NotNull DartHighlightRegionStore createStore(final TextRange... ranges) {
+    final int[] offsets = new int[ranges.length];
+    final int[] lengths = new int[ranges.length];
+    for (int i = 0; i < ranges.length; i++) {
+      offsets[i] = ranges[i].getStartOffset();
+      lengths[i] = ranges[i].getLength();
+    }
+    return new DartHighlightRegionStore(offsets, lengths, Collections.nCopies(ranges.length, "KEYWORD"));
+  }
+
+  private static void checkRegions(final @NotNull DartHighlightRegionStore store, final TextRange... ranges) {
+    final List<DartServerData.DartHighlightRegion> regions = store.getRegions();
+    assertEquals("Incorrect regions amount", ranges.length, regions.size());
+    for (int i = 0; i < ranges.length; i++) {
+      final DartServerData.DartHighlightRegion region = regions.get(i);
+      assertEquals("Mismatched region " + i, ranges[i], TextRange.from(region.getOffset(), region.getLength()));
+      assertEquals("KEYWORD", region.getType());
+    }
+  }
+
+  private static DartHighlightRegionStore createInitialStore() {
+    return createStore(TextRange.create(0, 19), TextRange.create(0, 6), TextRange.create(7, 18),
+                       TextRange.create(20, 39), TextRange.create(20, 26), TextRange.create(27, 38),
+                       TextRange.create(40, 59), TextRange.create(40, 46), TextRange.create(47, 58));
+  }
+
+  public void testTyping() {
+    DartHighlightRegionStore store = createInitialStore();
+    store.onDocumentChanged(27, 1);
+    checkRegions(store,
+                 TextRange.create(0, 19), TextRange.create(0, 6), TextRange.create(7, 18),
+                 TextRange.create(20, 40), TextRange.create(20, 26), TextRange.create(28, 39),
+                 TextRange.create(41, 60), TextRange.create(41, 47), TextRange.create(48, 59));
+
+    store = createInitialStore();
+    store.onDocumentChanged(29, 1);
+    checkRegions(store,
+                 TextRange.create(0, 19), TextRange.create(0, 6), TextRange.create(7, 18),
+                 TextRange.create(20, 40), TextRange.create(20, 26), TextRange.create(27, 39),
+                 TextRange.create(41, 60), TextRange.create(41, 47), TextRange.create(48, 59));
+
+    store = createInitialStore();
+    store.onDocumentChanged(38, 1);
+    checkRegions(store,
+                 TextRange.create(0, 19), TextRange.create(0, 6), TextRange.create(7, 18),
+                 TextRange.create(20, 40), TextRange.create(20, 26), TextRange.create(27, 38),
+                 TextRange.create(41, 60), TextRange.create(41, 47), TextRange.create(48, 59));
+  }
+
+  public void testDeletion() {
+    DartHighlightRegionStore store = createInitialStore();
+    // delete the whole second line
+    store.onDocumentChanged(20, -20);
+    checkRegions(store,
+                 TextRange.create(0, 19), TextRange.create(0, 6), TextRange.create(7, 18),
+                 TextRange.create(20, 39), TextRange.create(20, 26), TextRange.create(27, 38));
+
+    store = createInitialStore();
+    // delete a part of 'dart:core' in the middle line
+    store.onDocumentChanged(29, -2);
+    checkRegions(store,
+                 TextRange.create(0, 19), TextRange.create(0, 6), TextRange.create(7, 18),
+                 TextRange.create(20, 37), TextRange.create(20, 26), TextRange.create(27, 36),
+                 TextRange.create(38, 57), TextRange.create(38, 44), TextRange.create(45, 56));
+  }
+
+  public void testRandomEditsMatchPlainRegionsUpdate() {
+    final Random random = new Random(42);
+    for (int iteration = 0; iteration < 100; iteration++) {
+      final List<int[]> expected = new ArrayList<>();
+      int offset = 0;
+      for (int i = 0; i < 200; i++) {
+        offset += random.nextInt(5);
+        expected.add(new int[]{offset, 1 + random.nextInt(i % 10 == 0 ? 100 : 10)});
+      }
+      expected.sort((r1, r2) -> Integer.compare(r1[0], r2[0]));
+
+      final TextRange[] ranges = expected.stream().map(r -> TextRange.from(r[0], r[1])).toArray(TextRange[]::new);
+      final DartHighlightRegionStore store = createStore(ranges);
+
+      for (int edit = 0; edit < 50; edit++) {
+        final int eventOffset = random.nextInt(offset + 10);
+        final int deltaLength = random.nextBoolean() ? 1 + random.nextInt(5) : -Math.min(eventOffset + 1, 1 + random.nextInt(5));
+        store.onDocumentChanged(eventOffset, deltaLength);
+        updatePlainRegions(expected, eventOffset, deltaLength);
+        checkRegions(store, expected.stream().map(r -> TextRange.from(r[0], r[1])).toArray(TextRange[]::new));
+      }
+    }
+  }
+
+  /**
+   * Straightforward walk over all regions that {@link DartHighlightRegionStore} must be equivalent to.
+   */
+  private static void updatePlainRegions(final @NotNull List<int[]> regions, final int eventOffset, final int deltaLength) {
+    regions.removeIf(region -> {
+      if (deltaLength > 0) {
+        if (eventOffset <= region[0]) {
+          region[0] += deltaLength;
+        }
+        else if (eventOffset < region[0] + region[1]) {
+          region[1] += deltaLength;
+        }
+      }
+      else {
+        final int eventRightOffset = eventOffset - deltaLength;
+        final int regionRightOffset = region[0] + region[1];
+        if (eventRightOffset <= region[0]) {
+          region[0] += deltaLength;
+        }
+        else if (region[0] <= eventOffset && eventRightOffset <= regionRightOffset && region[1] != -deltaLength) {
+          region[1] += deltaLength;
+        }
+        else if (eventOffset < regionRightOffset) {
+          return true;
+        }
+      }
+      return false;
+    });
+  }
+}
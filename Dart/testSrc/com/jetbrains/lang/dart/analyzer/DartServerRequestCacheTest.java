@@ -0,0 +1,70 @@
+// Copyright 2000-2025 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.jetbrains.lang.dart.analyzer;
+
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DartServerRequestCacheTest extends TestCase {
+  private final DartServerRequestCache myCache = new DartServerRequestCache();
+  private final AtomicInteger myRequestCount = new AtomicInteger();
+  private CompletableFuture<String> myLastRequest;
+
+  private static @NotNull DartServerRequestCache.Key key(final int offset, final long stamp) {
+    return new DartServerRequestCache.Key("analysis_getHover", "file:///foo.dart", offset, 0, stamp);
+  }
+
+  private @NotNull CompletableFuture<String> request() {
+    myRequestCount.incrementAndGet();
+    myLastRequest = new CompletableFuture<>();
+    return myLastRequest;
+  }
+
+  public void testIdenticalRequestsShareRoundTrip() {
+    final CompletableFuture<String> f1 = myCache.get(key(10, 1), this::request);
+    final CompletableFuture<String> f2 = myCache.get(key(10, 1), this::request);
+    assertEquals(1, myRequestCount.get());
+
+    myLastRequest.complete("hover");
+    assertEquals("hover", f1.join());
+    assertEquals("hover", f2.join());
+
+    // completed result is reused
+    assertEquals("hover", myCache.get(key(10, 1), this::request).join());
+    assertEquals(1, myRequestCount.get());
+  }
+
+  public void testDifferentKeys() {
+    myCache.get(key(10, 1), this::request);
+    myCache.get(key(11, 1), this::request);
+    myCache.get(key(10, 2), this::request);
+    assertEquals(3, myRequestCount.get());
+  }
+
+  public void testClear() {
+    myCache.get(key(10, 1), this::request);
+    myLastRequest.complete("hover");
+    myCache.clear();
+    myCache.get(key(10, 1), this::request);
+    assertEquals(2, myRequestCount.get());
+  }
+
+  public void testRequestCancelledWhenAllCallersCancel() {
+    final CompletableFuture<String> f1 = myCache.get(key(10, 1), this::request);
+    final CompletableFuture<String> f2 = myCache.get(key(10, 1), this::request);
+    final CompletableFuture<String> request = myLastRequest;
+
+    f1.cancel(false);
+    assertFalse(request.isCancelled());
+    assertFalse(f2.isDone());
+
+    f2.cancel(false);
+    assertTrue(request.isCancelled());
+
+    // cancelled request is not reused
+    myCache.get(key(10, 1), this::request);
+    assertEquals(2, myRequestCount.get());
+  }
+}
@@ -0,0 +1,43 @@
+// Copyright 2000-2025 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
+package com.jetbrains.lang.dart.coverage;
+
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+public class DartCoverageDataTest extends TestCase {
+  private static final int N = DartCoverageData.NO_DATA;
+
+  private static @NotNull Map<String, int[]> read(final @NotNull String json) throws IOException {
+    final DartCoverageData data = DartCoverageData.read(new StringReader(json));
+    assertNotNull(data);
+    return data.getMergedLineHits();
+  }
+
+  private static void checkHits(final int @NotNull [] actual, final int... expected) {
+    int length = actual.length;
+    while (length > 0 && actual[length - 1] == N) length--;
+    assertEquals(Arrays.toString(expected), Arrays.toString(Arrays.copyOf(actual, length)));
+  }
+
+  public void testEmptyFile() throws IOException {
+    assertNull(DartCoverageData.read(new StringReader("")));
+  }
+
+  public void testMergeHits() throws IOException {
+    final Map<String, int[]> hits = read("""
+                                           {"type": "CodeCoverage", "coverage": [
+                                             {"source": "package:foo/foo.dart", "script": {"type": "@Script"}, "hits": [1, 2, 3, 0]},
+                                             {"hits": [3, 1, 5, 0], "source": "package:foo/foo.dart"},
+                                             {"source": "package:foo/bar.dart", "hits": []},
+                                             {"hits": [1, 1]}
+                                           ]}""");
+    assertEquals(2, hits.size());
+    checkHits(hits.get("package:foo/foo.dart"), N, 2, N, 1, N, 0);
+    checkHits(hits.get("package:foo/bar.dart"));
+  }
+}
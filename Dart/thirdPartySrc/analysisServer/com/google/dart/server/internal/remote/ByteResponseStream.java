@@ -105,11 +105,21 @@ public class ByteResponseStream implements ResponseStream {
 
   @Override
   public JsonObject take() throws Exception {
+    String line = takeLine();
+    return line != null ? parseResponse(line) : null;
+  }
+
+  @Override
+  public String takeLine() throws Exception {
     String line = lineQueue.take();
     if (line == EOF_LINE) {
       lineQueue.add(line);
       return null;
     }
+    return line;
+  }
+
+  public static JsonObject parseResponse(String line) {
     try {
       return (JsonObject) new JsonParser().parse(line);
     } catch (JsonSyntaxException e) {
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2025, the Dart project authors.
+ *
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.server.internal.remote;
+
+import com.google.dart.server.utilities.logging.Logging;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A thread which processes "analysis.*" and "server.status" notifications off the
+ * {@link RemoteAnalysisServerImpl.ServerResponseReaderThread}, so that a burst of big notifications
+ * doesn't delay responses to the requests, and stale notifications can be dropped before they are parsed.
+ * <p>
+ * Responses and other notifications are processed by the reader thread right away. The only exception is
+ * the "analysis.updateContent" response: it must not be applied before the analysis results for the old
+ * content, so the reader thread waits for the notifications received before it, see {@link #awaitProcessed()}.
+ * <p>
+ * Notifications are processed in the order they were received. If a notification of some kind for
+ * some file is still queued when a newer notification of the same kind for the same file arrives,
+ * the older one is dropped, and the newer one is queued at the end. Notifications without a file
+ * (like "analysis.flushResults") are never dropped.
+ *
+ * @coverage dart.server.remote
+ */
+public class NotificationProcessingThread extends Thread {
+  /**
+   * Processes a single response line.
+   */
+  public interface LineProcessor {
+    void process(String line) throws Exception;
+  }
+
+  private static final String ANALYSIS_NOTIFICATION_PREFIX = "analysis.";
+  private static final String SERVER_NOTIFICATION_STATUS = "server.status";
+
+  private final LineProcessor processor;
+
+  /**
+   * Queued lines by the notification key, in the order they should be processed.
+   */
+  private final Map<Object, String> queue = new LinkedHashMap<>();
+  private boolean closed;
+  /**
+   * Whether a line taken from the {@link #queue} is being processed.
+   */
+  private boolean processing;
+
+  public NotificationProcessingThread(LineProcessor processor) {
+    setDaemon(true);
+    setName("NotificationProcessingThread");
+    this.processor = processor;
+  }
+
+  /**
+   * Queues the given response line if it is a notification that should be processed by this thread.
+   *
+   * @return {@code true} if the line has been queued, {@code false} if it should be processed by the caller
+   */
+  public boolean offer(String line) {
+    Object key = getKey(line);
+    if (key == null) {
+      return false;
+    }
+
+    synchronized (queue) {
+      queue.remove(key);
+      queue.put(key, line);
+      queue.notifyAll();
+    }
+    return true;
+  }
+
+  /**
+   * Blocks until all notifications queued so far have been processed, or until this thread stops.
+   */
+  public void awaitProcessed() throws InterruptedException {
+    synchronized (queue) {
+      while ((!queue.isEmpty() || processing) && isAlive()) {
+        // the timeout guards against the thread stopping without notifying
+        queue.wait(100);
+      }
+    }
+  }
+
+  /**
+   * Stops the thread once all queued notifications are processed.
+   */
+  public void close() {
+    synchronized (queue) {
+      closed = true;
+      queue.notifyAll();
+    }
+  }
+
+  @Override
+  public void run() {
+    while (true) {
+      String line;
+      synchronized (queue) {
+        while (queue.isEmpty() && !closed) {
+          try {
+            queue.wait();
+          }
+          catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (queue.isEmpty()) {
+          return;
+        }
+        Iterator<String> iterator = queue.values().iterator();
+        line = iterator.next();
+        iterator.remove();
+        processing = true;
+      }
+
+      try {
+        processor.process(line);
+      }
+      catch (Throwable e) {
+        Logging.getLogger().logError(e.getMessage(), e);
+      }
+      finally {
+        synchronized (queue) {
+          processing = false;
+          queue.notifyAll();
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the key to coalesce the notification by, or {@code null} if the line is not a notification
+   * handled by this thread. Only the leading "event" field and the "file" field of "params" are read,
+   * the rest of the notification is parsed later by the {@link #processor}.
+   */
+  private static Object getKey(String line) {
+    try {
+      JsonReader reader = new JsonReader(new StringReader(line));
+      reader.beginObject();
+      if (!reader.hasNext() || !"event".equals(reader.nextName()) || reader.peek() != JsonToken.STRING) {
+        return null;
+      }
+
+      String event = reader.nextString();
+      if (!event.startsWith(ANALYSIS_NOTIFICATION_PREFIX) && !event.equals(SERVER_NOTIFICATION_STATUS)) {
+        return null;
+      }
+
+      if (reader.hasNext() && "params".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+        reader.beginObject();
+        while (reader.hasNext()) {
+          if ("file".equals(reader.nextName()) && reader.peek() == JsonToken.STRING) {
+            return new NotificationKey(event, reader.nextString());
+          }
+          reader.skipValue();
+        }
+      }
+
+      // a notification that is not related to a single file, must not be dropped
+      return new Object();
+    }
+    catch (IOException | IllegalStateException e) {
+      // let the regular processing report the malformed response
+      return null;
+    }
+  }
+
+  private record NotificationKey(String event, String file) {
+  }
+}
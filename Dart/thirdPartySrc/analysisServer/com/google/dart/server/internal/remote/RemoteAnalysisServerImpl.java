@@ -115,6 +115,7 @@ import com.google.dart.server.internal.remote.processor.PostfixCompletionProcess
 import com.google.dart.server.internal.remote.processor.RefactoringGetAvailableProcessor;
 import com.google.dart.server.internal.remote.processor.SortMembersProcessor;
 import com.google.dart.server.internal.remote.processor.StatementCompletionProcessor;
+import com.google.dart.server.internal.remote.processor.StreamingNotificationProcessor;
 import com.google.dart.server.internal.remote.processor.TypeHierarchyProcessor;
 import com.google.dart.server.internal.remote.processor.VersionProcessor;
 import com.google.dart.server.internal.remote.utilities.RequestUtilities;
@@ -127,6 +128,8 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import org.dartlang.analysis.server.protocol.AnalysisOptions;
 import org.dartlang.analysis.server.protocol.DartLspApplyWorkspaceEditParams;
 import org.dartlang.analysis.server.protocol.DartLspApplyWorkspaceEditResult;
@@ -146,6 +149,7 @@ import org.jetbrains.annotations.Nullable;
 import org.osgi.framework.Version;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -216,6 +220,11 @@ public abstract class RemoteAnalysisServerImpl implements AnalysisServer {
    */
   private final BroadcastAnalysisServerListener listener = new BroadcastAnalysisServerListener();
 
+  /**
+   * Decodes the biggest notifications without building a {@link JsonObject} tree.
+   */
+  private final StreamingNotificationProcessor streamingNotificationProcessor = new StreamingNotificationProcessor(listener);
+
   private final List<RequestListener> requestListenerList = new ArrayList<>();
 
   private final List<ResponseListener> responseListenerList = new ArrayList<>();
@@ -680,7 +689,30 @@ public abstract class RemoteAnalysisServerImpl implements AnalysisServer {
   }
 
   @Override
-  public void server_cancelRequest(String id) { }
+  public void server_cancelRequest(String id) {
+    String cancelId = generateUniqueId();
+    sendRequestToServer(cancelId, RequestUtilities.generateServerCancelRequest(cancelId, id));
+  }
+
+  /**
+   * Asks the server to cancel the request that was sent with the given {@link Consumer}. The consumer
+   * is still notified when the server responds, so it's up to the caller to ignore the result.
+   * Does nothing if the response has been already received.
+   */
+  public void cancelRequest(Consumer consumer) {
+    String id = null;
+    synchronized (consumerMapLock) {
+      for (Map.Entry<String, Consumer> entry : consumerMap.entrySet()) {
+        if (entry.getValue() == consumer) {
+          id = entry.getKey();
+          break;
+        }
+      }
+    }
+    if (id != null) {
+      server_cancelRequest(id);
+    }
+  }
 
   @Override
   public void server_getVersion(GetVersionConsumer consumer) {
@@ -1024,8 +1056,53 @@ public abstract class RemoteAnalysisServerImpl implements AnalysisServer {
     return new DartLspPosition(line, character);
   }
 
-  private void processResponse(JsonObject response) throws Exception {
-    notifyResponseListeners(response);
+  /**
+   * Returns whether the given line is the response to an "analysis.updateContent" request.
+   */
+  private boolean isUpdateContentResponse(String line) {
+    String id = readResponseId(line);
+    if (id == null) {
+      return false;
+    }
+    synchronized (consumerMapLock) {
+      return consumerMap.get(id) instanceof UpdateContentConsumer;
+    }
+  }
+
+  /**
+   * Returns the "id" of the response without parsing the rest of it, or {@code null} for notifications and malformed lines.
+   */
+  private static String readResponseId(String line) {
+    try {
+      JsonReader reader = new JsonReader(new StringReader(line));
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("event".equals(name)) {
+          return null;
+        }
+        if ("id".equals(name) && reader.peek() == JsonToken.STRING) {
+          return reader.nextString();
+        }
+        reader.skipValue();
+      }
+    }
+    catch (IOException | IllegalStateException e) {
+      // let the regular processing report the malformed response
+    }
+    return null;
+  }
+
+  private void processResponse(String line) throws Exception {
+    if (streamingNotificationProcessor.process(line)) {
+      notifyResponseListeners(line);
+      return;
+    }
+    processResponse(ByteResponseStream.parseResponse(line), line);
+  }
+
+  private void processResponse(JsonObject response, String line) throws Exception {
+    notifyResponseListeners(line);
     // handle notification
     if (processNotification(response)) {
       return;
@@ -1202,11 +1279,11 @@ public abstract class RemoteAnalysisServerImpl implements AnalysisServer {
     }
   }
 
-  private void notifyResponseListeners(JsonObject response) {
+  private void notifyResponseListeners(String response) {
     synchronized (responseListenerList) {
       List<ResponseListener> listeners = List.copyOf(responseListenerList);
       for (ResponseListener listener : listeners) {
-        listener.onResponse(response.toString());
+        listener.onResponse(response);
       }
     }
   }
@@ -1252,7 +1329,9 @@ public abstract class RemoteAnalysisServerImpl implements AnalysisServer {
     requestSink = socket.getRequestSink();
     responseStream = socket.getResponseStream();
     errorStream = socket.getErrorStream();
-    new ServerResponseReaderThread(responseStream).start();
+    NotificationProcessingThread notificationThread = new NotificationProcessingThread(this::processResponse);
+    notificationThread.start();
+    new ServerResponseReaderThread(responseStream, notificationThread).start();
     if (errorStream != null) {
       new ServerErrorReaderThread(errorStream, listener).start();
     }
@@ -1310,7 +1389,7 @@ public abstract class RemoteAnalysisServerImpl implements AnalysisServer {
             requestSink = blockRequestSink.toErrorSink(new ResponseSink() {
               @Override
               public void add(JsonObject response) throws Exception {
-                processResponse(response);
+                processResponse(response, response.toString());
               }
             }, ResponseUtilities.INCOMPATIBLE_SERVER_VERSION, message);
           }
@@ -1454,24 +1533,41 @@ public abstract class RemoteAnalysisServerImpl implements AnalysisServer {
   public class ServerResponseReaderThread extends Thread {
 
     private ResponseStream stream;
+    private final NotificationProcessingThread notificationThread;
 
-    public ServerResponseReaderThread(ResponseStream stream) {
+    public ServerResponseReaderThread(ResponseStream stream, NotificationProcessingThread notificationThread) {
       setDaemon(true);
       setName("ServerResponseReaderThread");
       this.stream = stream;
+      this.notificationThread = notificationThread;
     }
 
     @Override
     public void run() {
+      try {
+        readResponses();
+      }
+      finally {
+        notificationThread.close();
+      }
+    }
+
+    private void readResponses() {
       while (true) {
         try {
-          JsonObject response = stream.take();
-          if (response == null) {
+          String line = stream.takeLine();
+          if (line == null) {
             return;
           }
           lastResponseTime.set(System.currentTimeMillis());
           try {
-            processResponse(response);
+            if (!notificationThread.offer(line)) {
+              if (isUpdateContentResponse(line)) {
+                // analysis results received earlier were computed for the old content, they must be applied before the new one
+                notificationThread.awaitProcessed();
+              }
+              processResponse(line);
+            }
           }
           finally {
             stream.lastRequestProcessed();
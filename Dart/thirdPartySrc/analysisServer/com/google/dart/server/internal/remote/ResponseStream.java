@@ -30,4 +30,10 @@ public interface ResponseStream {
    * Takes the the next response from the stream. Blocks if no response available.
    */
   JsonObject take() throws Exception;
+
+  /**
+   * Takes the next response from the stream as a raw JSON string, {@code null} at the end of the stream.
+   * Blocks if no response available. Allows decoding responses without building a {@link JsonObject} tree.
+   */
+  String takeLine() throws Exception;
 }
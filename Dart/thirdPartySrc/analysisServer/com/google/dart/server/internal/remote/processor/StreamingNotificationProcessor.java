@@ -0,0 +1,264 @@
+package com.google.dart.server.internal.remote.processor;
+
+import com.google.dart.server.AnalysisServerListener;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import org.dartlang.analysis.server.protocol.HighlightRegion;
+import org.dartlang.analysis.server.protocol.NavigationRegion;
+import org.dartlang.analysis.server.protocol.NavigationTarget;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decodes the biggest notifications ("analysis.highlights" and "analysis.navigation") directly from
+ * the JSON text into protocol objects, without building an intermediate {@link com.google.gson.JsonObject}
+ * tree. Other responses are left to the regular {@link com.google.gson.JsonObject} based processors.
+ *
+ * @coverage dart.server.remote
+ */
+public class StreamingNotificationProcessor {
+  private static final String ANALYSIS_NOTIFICATION_HIGHTLIGHTS = "analysis.highlights";
+  private static final String ANALYSIS_NOTIFICATION_NAVIGATION = "analysis.navigation";
+
+  private final AnalysisServerListener listener;
+
+  /**
+   * There are just a few dozens of distinct highlight and navigation kinds, share their instances between all notifications.
+   */
+  private final Map<String, String> kinds = new ConcurrentHashMap<>();
+
+  public StreamingNotificationProcessor(AnalysisServerListener listener) {
+    this.listener = listener;
+  }
+
+  /**
+   * Attempts to decode and process the given response line. Returns {@code false} if the response is not
+   * a supported notification, if it doesn't start with the "event" field or if it can't be decoded. In this
+   * case nothing is reported to the listener, and the response should be processed the regular way, which
+   * also reports malformed responses. Notifications without a file are ignored.
+   */
+  public boolean process(String line) {
+    Runnable notification;
+    try {
+      notification = decode(line);
+    }
+    catch (IOException | RuntimeException e) {
+      return false;
+    }
+    if (notification == null) {
+      return false;
+    }
+
+    notification.run();
+    return true;
+  }
+
+  /**
+   * Returns the action that reports the decoded notification to the listener, or {@code null} if the line is
+   * not a supported notification. Nothing is reported before the whole line is decoded.
+   */
+  private Runnable decode(String line) throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(line));
+    reader.beginObject();
+    if (!reader.hasNext() || !"event".equals(reader.nextName()) || reader.peek() != JsonToken.STRING) {
+      return null;
+    }
+
+    String event = reader.nextString();
+    boolean highlights = event.equals(ANALYSIS_NOTIFICATION_HIGHTLIGHTS);
+    if (!highlights && !event.equals(ANALYSIS_NOTIFICATION_NAVIGATION)) {
+      return null;
+    }
+
+    Runnable notification = () -> {};
+    while (reader.hasNext()) {
+      if (!"params".equals(reader.nextName())) {
+        reader.skipValue();
+      }
+      else if (highlights) {
+        notification = readHighlights(reader);
+      }
+      else {
+        notification = readNavigation(reader);
+      }
+    }
+    reader.endObject();
+    return notification;
+  }
+
+  private Runnable readHighlights(JsonReader reader) throws IOException {
+    String file = null;
+    List<HighlightRegion> regions = HighlightRegion.EMPTY_LIST;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "file" -> file = reader.nextString();
+        case "regions" -> {
+          regions = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            regions.add(readHighlightRegion(reader));
+          }
+          reader.endArray();
+        }
+        default -> reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    if (file == null) {
+      return () -> {};
+    }
+    String highlightsFile = file;
+    List<HighlightRegion> highlightRegions = regions;
+    return () -> listener.computedHighlights(highlightsFile, highlightRegions);
+  }
+
+  private HighlightRegion readHighlightRegion(JsonReader reader) throws IOException {
+    String type = null;
+    int offset = 0;
+    int length = 0;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "type" -> type = intern(reader.nextString());
+        case "offset" -> offset = reader.nextInt();
+        case "length" -> length = reader.nextInt();
+        default -> reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return new HighlightRegion(type, offset, length);
+  }
+
+  private Runnable readNavigation(JsonReader reader) throws IOException {
+    String file = null;
+    String[] targetFiles = new String[0];
+    List<NavigationTarget> targets = new ArrayList<>();
+    List<NavigationRegion> regions = new ArrayList<>();
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "file" -> file = reader.nextString();
+        case "files" -> {
+          List<String> files = new ArrayList<>();
+          reader.beginArray();
+          while (reader.hasNext()) {
+            files.add(reader.nextString());
+          }
+          reader.endArray();
+          targetFiles = files.toArray(new String[0]);
+        }
+        case "targets" -> {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            targets.add(readNavigationTarget(reader));
+          }
+          reader.endArray();
+        }
+        case "regions" -> {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            regions.add(readNavigationRegion(reader));
+          }
+          reader.endArray();
+        }
+        default -> reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    // the fields may come in any order, so targets are resolved only when all of them are read
+    for (NavigationTarget target : targets) {
+      target.lookupFile(targetFiles);
+    }
+    for (NavigationRegion region : regions) {
+      region.lookupTargets(targets);
+    }
+
+    if (file == null) {
+      return () -> {};
+    }
+    String navigationFile = file;
+    return () -> listener.computedNavigation(navigationFile, regions);
+  }
+
+  private NavigationTarget readNavigationTarget(JsonReader reader) throws IOException {
+    String kind = null;
+    int fileIndex = 0;
+    int offset = 0;
+    int length = 0;
+    int startLine = 0;
+    int startColumn = 0;
+    Integer codeOffset = null;
+    Integer codeLength = null;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "kind" -> kind = intern(reader.nextString());
+        case "fileIndex" -> fileIndex = reader.nextInt();
+        case "offset" -> offset = reader.nextInt();
+        case "length" -> length = reader.nextInt();
+        case "startLine" -> startLine = reader.nextInt();
+        case "startColumn" -> startColumn = reader.nextInt();
+        case "codeOffset" -> codeOffset = reader.nextInt();
+        case "codeLength" -> codeLength = reader.nextInt();
+        default -> reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return new NavigationTarget(kind, fileIndex, offset, length, startLine, startColumn, codeOffset, codeLength);
+  }
+
+  private static NavigationRegion readNavigationRegion(JsonReader reader) throws IOException {
+    int offset = 0;
+    int length = 0;
+    int[] targets = new int[0];
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "offset" -> offset = reader.nextInt();
+        case "length" -> length = reader.nextInt();
+        case "targets" -> targets = readIntArray(reader);
+        default -> reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    return new NavigationRegion(offset, length, targets);
+  }
+
+  private static int[] readIntArray(JsonReader reader) throws IOException {
+    int[] result = new int[4];
+    int size = 0;
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (size == result.length) {
+        result = Arrays.copyOf(result, size * 2);
+      }
+      result[size++] = reader.nextInt();
+    }
+    reader.endArray();
+
+    return size == result.length ? result : Arrays.copyOf(result, size);
+  }
+
+  private String intern(String kind) {
+    String existing = kinds.putIfAbsent(kind, kind);
+    return existing != null ? existing : kind;
+  }
+}
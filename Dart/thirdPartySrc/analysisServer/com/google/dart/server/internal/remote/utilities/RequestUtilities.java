@@ -67,6 +67,7 @@ public class RequestUtilities {
   private static final String MILLIS = "millis";
 
   // Server domain
+  private static final String METHOD_SERVER_CANCEL_REQUEST = "server.cancelRequest";
   private static final String METHOD_SERVER_GET_VERSION = "server.getVersion";
   private static final String METHOD_SERVER_SHUTDOWN = "server.shutdown";
   private static final String METHOD_SERVER_SET_SUBSCRIPTIONS = "server.setSubscriptions";
@@ -1002,6 +1003,25 @@ public class RequestUtilities {
     return buildJsonObjectRequest(id, METHOD_SEARCH_GET_TYPE_HIERARCHY, params);
   }
 
+  /**
+   * Generate and return a {@value #METHOD_SERVER_CANCEL_REQUEST} request.
+   * <p>
+   * <pre>
+   * request: {
+   *   "id": String
+   *   "method": "server.cancelRequest"
+   *   "params": {
+   *     "id": String
+   *   }
+   * }
+   * </pre>
+   */
+  public static JsonObject generateServerCancelRequest(String idValue, String requestId) {
+    JsonObject params = new JsonObject();
+    params.addProperty(ID, requestId);
+    return buildJsonObjectRequest(idValue, METHOD_SERVER_CANCEL_REQUEST, params);
+  }
+
   /**
    * Generate and return a {@value #METHOD_SERVER_GET_VERSION} request.
    * <p>
@@ -4,40 +4,35 @@ package com.intellij.plugins.drools.lang.psi.indexes
 import com.intellij.plugins.drools.DroolsFileType
 import com.intellij.plugins.drools.lang.psi.DroolsFile
 import com.intellij.util.indexing.*
-import com.intellij.util.io.DataExternalizer
 import com.intellij.util.io.EnumeratorStringDescriptor
 import com.intellij.util.io.KeyDescriptor
-import com.intellij.util.io.externalizer.StringCollectionExternalizer
 
-internal class DroolsDeclareStatementScalarIndex : FileBasedIndexExtension<String, List<String>>() {
+/**
+ * Qualified names of the types declared in Drools files, so that a class is looked up only in the files that declare it.
+ */
+internal class DroolsDeclareStatementScalarIndex : ScalarIndexExtension<String>() {
   override fun getKeyDescriptor(): KeyDescriptor<String> = EnumeratorStringDescriptor.INSTANCE
 
   companion object {
-    var id = ID.create<String, List<String>>("drools.declareStatementFileIndex")
+    var id = ID.create<String, Void>("drools.declareStatementFileIndex")
   }
 
-  override fun getName(): ID<String, List<String>> = id
+  override fun getName(): ID<String, Void> = id
 
-  override fun getIndexer(): DataIndexer<String, List<String>, FileContent> {
+  override fun getIndexer(): DataIndexer<String, Void, FileContent> {
     return DataIndexer { inputData ->
-      val declarations = hashMapOf<String, List<String>>()
-      val file = inputData.psiFile as? DroolsFile ?: return@DataIndexer emptyMap<String, List<String>>()
-      val pkg = file.`package`?.namespace?.text ?: ""
+      val file = inputData.psiFile as? DroolsFile ?: return@DataIndexer emptyMap<String, Void>()
 
-      val values = mutableListOf<String>()
+      val declarations = hashMapOf<String, Void?>()
       for (declareStatement in file.declarations) {
-        declareStatement.typeDeclaration?.qualifiedName?.let { values.add(it) }
+        declareStatement.typeDeclaration?.qualifiedName?.let { declarations.put(it, null) }
       }
 
-      if (!values.isEmpty()) declarations.put(pkg, values)
-
       return@DataIndexer declarations
     }
   }
 
-  override fun getValueExternalizer(): DataExternalizer<List<String>> = StringCollectionExternalizer.STRING_LIST_EXTERNALIZER
-
-  override fun getVersion(): Int = 2
+  override fun getVersion(): Int = 3
 
   override fun getInputFilter(): FileBasedIndex.InputFilter = DefaultFileTypeSpecificInputFilter(DroolsFileType.DROOLS_FILE_TYPE)
 
@@ -3,7 +3,6 @@
 package com.intellij.plugins.drools.lang.psi.searchers;
 
 import com.intellij.openapi.application.ReadAction;
-import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.plugins.drools.lang.psi.DroolsDeclareStatement;
 import com.intellij.plugins.drools.lang.psi.DroolsFile;
@@ -27,9 +26,8 @@ public final class DroolsClassFinder extends PsiElementFinder {
   public @Nullable PsiClass findClass(@NotNull String qualifiedName, @NotNull GlobalSearchScope scope) {
     if (scope.getProject() == null) return null;
 
-    String packageName = StringUtil.getPackageName(qualifiedName);
     Collection<VirtualFile> filesByExt = ReadAction.compute(
-      () -> FileBasedIndex.getInstance().getContainingFiles(DroolsDeclareStatementScalarIndex.Companion.getId(), packageName, scope));
+      () -> FileBasedIndex.getInstance().getContainingFiles(DroolsDeclareStatementScalarIndex.Companion.getId(), qualifiedName, scope));
     if (filesByExt.isEmpty()) return null;
     PsiManager psiManager = PsiManager.getInstance(scope.getProject());
     for (VirtualFile file : filesByExt) {
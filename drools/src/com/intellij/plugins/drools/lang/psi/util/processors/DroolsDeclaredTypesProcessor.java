@@ -6,11 +6,17 @@ import com.intellij.plugins.drools.lang.psi.DroolsEnumDeclaration;
 import com.intellij.plugins.drools.lang.psi.DroolsFile;
 import com.intellij.plugins.drools.lang.psi.DroolsTypeDeclaration;
 import com.intellij.plugins.drools.lang.psi.util.DroolsLightClass;
+import com.intellij.psi.PsiClass;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.ResolveState;
 import com.intellij.psi.scope.PsiScopeProcessor;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public final class DroolsDeclaredTypesProcessor implements DroolsDeclarationsProcessor {
   private static DroolsDeclaredTypesProcessor myInstance;
 
@@ -29,27 +35,26 @@ public final class DroolsDeclaredTypesProcessor implements DroolsDeclarationsPro
                                 @NotNull ResolveState state,
                                 PsiElement lastParent,
                                 @NotNull PsiElement place, @NotNull DroolsFile droolsFile) {
-    DroolsDeclareStatement[] declarations = droolsFile.getDeclarations();
-    for (DroolsDeclareStatement declaration : declarations) {
-      if (!processTypeDeclaration(processor, state, declaration)) return false;
-      if (!processEnumDeclaration(processor, state, declaration)) return false;
+    for (PsiClass declaredType : getDeclaredTypes(droolsFile)) {
+      if (!processor.execute(declaredType, state)) return false;
     }
     return true;
   }
 
-  private static boolean processTypeDeclaration(@NotNull PsiScopeProcessor processor, @NotNull ResolveState state, DroolsDeclareStatement declaration) {
-    DroolsTypeDeclaration typeDeclaration = declaration.getTypeDeclaration();
-    if (typeDeclaration != null  && !processor.execute(new DroolsLightClass(typeDeclaration), state)) {
-      return false;
-    }
-    return true;
-  }
-
-  private static boolean processEnumDeclaration(@NotNull PsiScopeProcessor processor, @NotNull ResolveState state, DroolsDeclareStatement declaration) {
-    DroolsEnumDeclaration enumDeclaration = declaration.getEnumDeclaration();
-    if (enumDeclaration != null  && !processor.execute(new DroolsLightClass(enumDeclaration), state)) {
-      return false;
-    }
-    return true;
+  public static @NotNull List<PsiClass> getDeclaredTypes(@NotNull DroolsFile droolsFile) {
+    return CachedValuesManager.getCachedValue(droolsFile, () -> {
+      final List<PsiClass> declaredTypes = new ArrayList<>();
+      for (DroolsDeclareStatement declaration : droolsFile.getDeclarations()) {
+        DroolsTypeDeclaration typeDeclaration = declaration.getTypeDeclaration();
+        if (typeDeclaration != null) {
+          declaredTypes.add(new DroolsLightClass(typeDeclaration));
+        }
+        DroolsEnumDeclaration enumDeclaration = declaration.getEnumDeclaration();
+        if (enumDeclaration != null) {
+          declaredTypes.add(new DroolsLightClass(enumDeclaration));
+        }
+      }
+      return CachedValueProvider.Result.createSingleDependency(declaredTypes, droolsFile);
+    });
   }
 }
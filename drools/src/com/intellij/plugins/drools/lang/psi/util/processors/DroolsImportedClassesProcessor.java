@@ -2,6 +2,7 @@
 package com.intellij.plugins.drools.lang.psi.util.processors;
 
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.plugins.drools.lang.psi.DroolsFile;
 import com.intellij.plugins.drools.lang.psi.DroolsImport;
 import com.intellij.plugins.drools.lang.psi.util.DroolsLightClass;
@@ -12,8 +13,14 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.ResolveState;
 import com.intellij.psi.scope.PsiScopeProcessor;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public final class DroolsImportedClassesProcessor implements DroolsDeclarationsProcessor {
   private static DroolsImportedClassesProcessor myInstance;
 
@@ -32,22 +39,37 @@ public final class DroolsImportedClassesProcessor implements DroolsDeclarationsP
                                 @NotNull ResolveState state,
                                 PsiElement lastParent,
                                 @NotNull PsiElement place, @NotNull DroolsFile droolsFile) {
-    return processImportedClasses(processor, state, droolsFile.getImports(), place.getProject(),
-                                  DroolsResolveUtil.getSearchScope(droolsFile));
+    for (PsiClass importedClass : getImportedClasses(droolsFile)) {
+      if (!processor.execute(importedClass, state)) return false;
+    }
+    return true;
   }
 
-  private static boolean processImportedClasses(PsiScopeProcessor processor, ResolveState state, DroolsImport[] imports, Project project,
-                                                GlobalSearchScope scope) {
+  /**
+   * Imported classes are resolved once per file and Java PSI modification, not for every reference.
+   */
+  public static @NotNull List<PsiClass> getImportedClasses(@NotNull DroolsFile droolsFile) {
+    return CachedValuesManager.getCachedValue(droolsFile, () -> {
+      final Project project = droolsFile.getProject();
+      return CachedValueProvider.Result.create(findImportedClasses(droolsFile.getImports(), project,
+                                                                   DroolsResolveUtil.getSearchScope(droolsFile)),
+                                               droolsFile, PsiModificationTracker.getInstance(project),
+                                               ProjectRootManager.getInstance(project));
+    });
+  }
+
+  private static @NotNull List<PsiClass> findImportedClasses(DroolsImport[] imports, Project project, GlobalSearchScope scope) {
+    final List<PsiClass> importedClasses = new ArrayList<>();
     JavaPsiFacade facade = JavaPsiFacade.getInstance(project);
     for (DroolsImport droolsImport : imports) {
       String className = droolsImport.getImportedClassName();
       if (className != null) {
         PsiClass psiClass = facade.findClass(className, scope);
-        if (psiClass != null && !processor.execute(new DroolsLightClass(psiClass), state)) {
-          return false;
+        if (psiClass != null) {
+          importedClasses.add(new DroolsLightClass(psiClass));
         }
       }
     }
-    return true;
+    return importedClasses;
   }
 }
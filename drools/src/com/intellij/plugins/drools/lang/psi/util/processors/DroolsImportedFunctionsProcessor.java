@@ -1,6 +1,8 @@
 // Copyright 2000-2023 JetBrains s.r.o. and contributors. Use of this source code is governed by the Apache 2.0 license.
 package com.intellij.plugins.drools.lang.psi.util.processors;
 
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.plugins.drools.lang.psi.DroolsFile;
 import com.intellij.plugins.drools.lang.psi.DroolsImport;
@@ -8,6 +10,9 @@ import com.intellij.plugins.drools.lang.psi.util.DroolsResolveUtil;
 import com.intellij.psi.*;
 import com.intellij.psi.scope.PsiScopeProcessor;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
@@ -37,6 +42,14 @@ public final class DroolsImportedFunctionsProcessor implements DroolsDeclaration
   }
 
   public static PsiMethod[] getImportedFunctions(@NotNull DroolsFile droolsFile) {
+    return CachedValuesManager.getCachedValue(droolsFile, () -> {
+      final Project project = droolsFile.getProject();
+      return CachedValueProvider.Result.create(findImportedFunctions(droolsFile), droolsFile,
+                                               PsiModificationTracker.getInstance(project), ProjectRootManager.getInstance(project));
+    });
+  }
+
+  private static PsiMethod @NotNull [] findImportedFunctions(@NotNull DroolsFile droolsFile) {
     final GlobalSearchScope scope = DroolsResolveUtil.getSearchScope(droolsFile);
     for (DroolsImport anImport : Arrays.stream(droolsFile.getImports()).filter(anImport -> anImport.isFunction()).toList()) {
       final String importedFunction = anImport.getImportedFunction();
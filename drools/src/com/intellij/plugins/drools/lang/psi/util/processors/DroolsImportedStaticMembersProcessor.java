@@ -3,12 +3,17 @@ package com.intellij.plugins.drools.lang.psi.util.processors;
 
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.plugins.drools.lang.psi.DroolsFile;
 import com.intellij.plugins.drools.lang.psi.DroolsImportStatement;
 import com.intellij.psi.*;
 import com.intellij.psi.scope.PsiScopeProcessor;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
@@ -40,6 +45,14 @@ public final class DroolsImportedStaticMembersProcessor implements DroolsDeclara
   }
 
   public static @NotNull Set<PsiField> getImportedStaticMembers(@NotNull DroolsFile droolsFile) {
+    return CachedValuesManager.getCachedValue(droolsFile, () -> {
+      final Project project = droolsFile.getProject();
+      return CachedValueProvider.Result.create(findImportedStaticMembers(droolsFile), droolsFile,
+                                               PsiModificationTracker.getInstance(project), ProjectRootManager.getInstance(project));
+    });
+  }
+
+  private static @NotNull Set<PsiField> findImportedStaticMembers(@NotNull DroolsFile droolsFile) {
     final Module module = ModuleUtilCore.findModuleForPsiElement(droolsFile);
     final GlobalSearchScope scope =
       module != null ? module.getModuleRuntimeScope(false) : GlobalSearchScope.allScope(droolsFile.getProject());
@@ -6,6 +6,8 @@ import com.intellij.plugins.drools.lang.psi.*;
 import com.intellij.plugins.drools.lang.psi.util.DroolsLightVariable;
 import com.intellij.psi.*;
 import com.intellij.psi.scope.PsiScopeProcessor;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -73,7 +75,28 @@ public final class DroolsLhsBindVariablesProcessor implements DroolsDeclarations
   }
 
   private static Set<PsiVariable> getVariables(final PsiElement psiElement, DroolsRuleStatement droolsRule) {
+    // "s1: sequence" is not visible inside itself
+    final DroolsUnaryAssignExpr parentUnaryAssignExpr = PsiTreeUtil.getParentOfType(psiElement, DroolsUnaryAssignExpr.class);
     final Set<PsiVariable> binds = new HashSet<>();
+    for (PsiVariable bind : getRuleVariables(droolsRule)) {
+      if (parentUnaryAssignExpr == null || !parentUnaryAssignExpr.equals(bind)) {
+        binds.add(bind);
+      }
+    }
+    return binds;
+  }
+
+  /**
+   * Binds of a rule are collected once per file modification and shared by all references inside the rule.
+   */
+  private static List<PsiVariable> getRuleVariables(final @NotNull DroolsRuleStatement droolsRule) {
+    return CachedValuesManager.getCachedValue(droolsRule, () -> {
+      return CachedValueProvider.Result.create(collectRuleVariables(droolsRule), droolsRule.getContainingFile());
+    });
+  }
+
+  private static List<PsiVariable> collectRuleVariables(final @NotNull DroolsRuleStatement droolsRule) {
+    final List<PsiVariable> binds = new ArrayList<>();
 
     droolsRule.acceptChildren(new DroolsVisitor() {
       @Override
@@ -94,10 +117,7 @@ public final class DroolsLhsBindVariablesProcessor implements DroolsDeclarations
         final DroolsNameId identifier = unaryAssignExpr.getNameId();
         String id = identifier.getText();
         if (id != null) {
-          final DroolsUnaryAssignExpr parentUnaryAssignExpr = PsiTreeUtil.getParentOfType(psiElement, DroolsUnaryAssignExpr.class);
-          if (!unaryAssignExpr.equals(parentUnaryAssignExpr)) {
-            binds.add(unaryAssignExpr);
-          }
+          binds.add(unaryAssignExpr);
         }
       }
 
@@ -13,6 +13,7 @@ import com.intellij.flex.model.run.JpsFlashRunConfigurationType;
 import com.intellij.flex.model.run.JpsFlexUnitRunConfigurationType;
 import com.intellij.openapi.util.JDOMUtil;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.PathUtilRt;
 import com.intellij.util.xmlb.XmlSerializer;
 import org.jetbrains.annotations.NotNull;
@@ -28,6 +29,7 @@ import org.jetbrains.jps.model.JpsProject;
 import org.jetbrains.jps.model.java.JavaSourceRootType;
 import org.jetbrains.jps.model.library.JpsLibrary;
 import org.jetbrains.jps.model.library.JpsOrderRootType;
+import org.jetbrains.jps.model.library.sdk.JpsSdk;
 import org.jetbrains.jps.model.module.JpsModuleSourceRoot;
 import org.jetbrains.jps.model.runConfiguration.JpsRunConfigurationType;
 import org.jetbrains.jps.model.runConfiguration.JpsTypedRunConfiguration;
@@ -238,6 +240,35 @@ public final class FlexBuildTarget extends BuildTarget<BuildRootDescriptor> impl
     JpsFlexModuleOrProjectCompilerOptions projectOptions =
       JpsFlexProjectLevelCompilerOptionsExtension.getProjectLevelCompilerOptions(myBC.getModule().getProject());
     hash.putString(JDOMUtil.writeElement(XmlSerializer.serialize(((JpsFlexCompilerOptionsImpl)projectOptions).getState())));
+
+    // The generated compiler config also depends on the SDK and on the library roots. FlexBuilder skips both config generation and
+    // compilation if neither this digest nor any source file has changed since the previous build, so they must be hashed as well.
+    final JpsSdk<?> sdk = myBC.getSdk();
+    if (sdk != null) {
+      hash.putString(sdk.getHomePath());
+      hash.putString(StringUtil.notNullize(sdk.getVersionString()));
+      putRootUrls(sdk.getParent(), hash);
+    }
+    else {
+      hash.putString("");
+    }
+
+    for (JpsFlexDependencyEntry entry : myBC.getDependencies().getEntries()) {
+      if (entry instanceof JpsLibraryDependencyEntry) {
+        final JpsLibrary library = ((JpsLibraryDependencyEntry)entry).getLibrary();
+        if (library != null) {
+          putRootUrls(library, hash);
+        }
+      }
+    }
+  }
+
+  private static void putRootUrls(final @NotNull JpsLibrary library, final @NotNull HashSink hash) {
+    final List<String> rootUrls = library.getRootUrls(JpsOrderRootType.COMPILED);
+    hash.putInt(rootUrls.size());
+    for (String url : rootUrls) {
+      hash.putString(url);
+    }
   }
 
   @Override
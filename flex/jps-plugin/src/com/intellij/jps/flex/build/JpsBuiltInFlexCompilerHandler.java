@@ -16,26 +16,35 @@ import org.jetbrains.jps.service.SharedThreadPool;
 import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs compilations in out-of-process built-in compiler shells (see {@code com.intellij.flex.compiler.FlexCompiler}).
+ * <p>
+ * Each compiler process can run several compilations at once: commands and output lines are prefixed with the compilation number.
+ * But compilations in one process share a lot of static compiler state, e.g. compilations with and without trace statements wait
+ * for each other. So if all running processes are busy, a new one is started, up to {@link #MAX_PROCESSES_PROPERTY}.
+ */
 public final class JpsBuiltInFlexCompilerHandler {
   private static final Logger LOG = Logger.getInstance(JpsBuiltInFlexCompilerHandler.class.getName());
   private static final String CONNECTION_SUCCESSFUL = "Connection successful";
   public static final String COMPILATION_FINISHED = "Compilation finished";
 
+  private static final String MAX_PROCESSES_PROPERTY = "flex.builtin.compiler.max.processes";
+  private static final int MAX_PROCESSES =
+    Math.max(1, Integer.getInteger(MAX_PROCESSES_PROPERTY, 2));
+
   private final JpsProject myProject;
 
   private String mySdkHome;
 
-  private ServerSocket myServerSocket;
-  private DataInputStream myDataInputStream;
-  private DataOutputStream myDataOutputStream;
-
-  private int commandNumber = 1;
-  private final Map<String, Listener> myActiveListeners = new HashMap<>();
+  private final List<CompilerProcess> myProcesses = new ArrayList<>();
+  private final AtomicInteger myCommandNumber = new AtomicInteger(1);
 
   public interface Listener {
     void textAvailable(String text);
@@ -58,29 +67,37 @@ public final class JpsBuiltInFlexCompilerHandler {
       stopCompilerProcess();
     }
 
-    if (myServerSocket == null) {
-      try {
-        //context.processMessage(new ProgressMessage("Starting Flex compiler"));
-        myServerSocket = new ServerSocket(0);
-        myServerSocket.setSoTimeout(10000);
-        final int port = myServerSocket.getLocalPort();
-
-        startCompilerProcess(sdk, port, context, compilerName);
-
-        final Socket socket = myServerSocket.accept();
-        myDataInputStream = new DataInputStream(socket.getInputStream());
-        myDataOutputStream = new DataOutputStream(socket.getOutputStream());
-        mySdkHome = sdk.getHomePath();
-        scheduleInputReading();
-      }
-      catch (IOException e) {
-        stopCompilerProcess();
-        throw e;
-      }
+    for (CompilerProcess process : myProcesses) {
+      if (process.myDataOutputStream != null && process.myListeners.isEmpty()) return;
+    }
+
+    if (myProcesses.size() >= MAX_PROCESSES) return;
+
+    final CompilerProcess process = new CompilerProcess();
+    try {
+      //context.processMessage(new ProgressMessage("Starting Flex compiler"));
+      process.myServerSocket = new ServerSocket(0);
+      process.myServerSocket.setSoTimeout(10000);
+      final int port = process.myServerSocket.getLocalPort();
+
+      startCompilerProcess(process, sdk, port, context, compilerName);
+
+      final Socket socket = process.myServerSocket.accept();
+      process.myDataInputStream = new DataInputStream(socket.getInputStream());
+      process.myDataOutputStream = new DataOutputStream(socket.getOutputStream());
+      mySdkHome = sdk.getHomePath();
+      myProcesses.add(process);
+      LOG.debug("Built-in Flex compiler processes: " + myProcesses.size());
+      scheduleInputReading(process);
+    }
+    catch (IOException e) {
+      process.closeSocket();
+      throw e;
     }
   }
 
-  private void startCompilerProcess(final JpsSdk<?> sdk,
+  private void startCompilerProcess(final CompilerProcess compilerProcess,
+                                    final JpsSdk<?> sdk,
                                     final int port,
                                     final CompileContext context,
                                     final String compilerName) throws IOException {
@@ -106,10 +123,13 @@ public final class JpsBuiltInFlexCompilerHandler {
     context.processMessage(new CompilerMessage(compilerName, BuildMessage.Kind.INFO, "Starting Flex compiler:\n" + plainCommand));
 
     final Process process = processBuilder.start();
-    readInputStreamUntilConnected(process, context, compilerName);
+    readInputStreamUntilConnected(compilerProcess, process, context, compilerName);
   }
 
-  private void readInputStreamUntilConnected(final Process process, final CompileContext context, final String compilerName) {
+  private void readInputStreamUntilConnected(final CompilerProcess compilerProcess,
+                                             final Process process,
+                                             final CompileContext context,
+                                             final String compilerName) {
     SharedThreadPool.getInstance().execute(() -> {
       try (InputStreamReader reader = FlexCommonUtils.createInputStreamReader(process.getInputStream())) {
         char[] buf = new char[1024];
@@ -120,24 +140,24 @@ public final class JpsBuiltInFlexCompilerHandler {
             break;
           }
           else {
-            closeSocket();
+            compilerProcess.closeSocket();
             context.processMessage(new CompilerMessage(compilerName, BuildMessage.Kind.ERROR, output));
           }
         }
       }
       catch (IOException e) {
-        closeSocket();
+        compilerProcess.closeSocket();
         context.processMessage(
           new CompilerMessage(compilerName, BuildMessage.Kind.ERROR, "Failed to start Flex compiler: " + e.toString()));
       }
     });
   }
 
-  private void scheduleInputReading() {
+  private void scheduleInputReading(final CompilerProcess process) {
     SharedThreadPool.getInstance().execute(() -> {
       final StringBuilder buffer = new StringBuilder();
       while (true) {
-        final DataInputStream dataInputStream = myDataInputStream;
+        final DataInputStream dataInputStream = process.myDataInputStream;
         if (dataInputStream != null) {
           try {
             buffer.append(dataInputStream.readUTF());
@@ -146,13 +166,11 @@ public final class JpsBuiltInFlexCompilerHandler {
             while ((index = buffer.indexOf("\n")) > -1) {
               final String line = buffer.substring(0, index);
               buffer.delete(0, index + 1);
-              handleInputLine(line);
+              process.handleInputLine(line);
             }
           }
           catch (IOException e) {
-            if (dataInputStream == myDataInputStream) {
-              stopCompilerProcess();
-            }
+            stopCompilerProcess(process);
             break;
           }
         }
@@ -163,112 +181,167 @@ public final class JpsBuiltInFlexCompilerHandler {
     });
   }
 
-  private synchronized void handleInputLine(final String line) {
-    LOG.debug("RECEIVED: [" + line + "]");
+  public void sendCompilationCommand(final String command, final Listener listener) {
+    final CompilerProcess process;
+    synchronized (this) {
+      process = getLeastLoadedProcess();
+    }
 
-    final int colonPos = line.indexOf(":");
-    if (colonPos <= 0) {
-      LOG.error("Incorrect command: [" + line + "]");
+    if (process == null) {
+      listener.textAvailable("Error: Compiler process is not started.");
+      listener.compilationFinished();
       return;
     }
 
-    final String prefix = line.substring(0, colonPos + 1);
-    final Listener listener = myActiveListeners.get(prefix);
-    if (listener == null) {
-      LOG.warn("No active listener for input line: [" + line + "]");  // could be message from cancelled compilation
-    }
-    else {
-      final String text = line.substring(colonPos + 1);
-      if (text.startsWith(COMPILATION_FINISHED)) {
-        listener.compilationFinished();
-        myActiveListeners.remove(prefix);
-      }
-      else {
-        listener.textAvailable(text);
+    process.sendCompilationCommand(command, listener);
+  }
+
+  private CompilerProcess getLeastLoadedProcess() {
+    CompilerProcess result = null;
+    for (CompilerProcess process : myProcesses) {
+      if (process.myDataOutputStream != null && (result == null || process.myListeners.size() < result.myListeners.size())) {
+        result = process;
       }
     }
+    return result;
   }
 
-  public synchronized void sendCompilationCommand(final String command, final Listener listener) {
-    if (myDataOutputStream == null) {
-      listener.textAvailable("Error: Compiler process is not started.");
-      listener.compilationFinished();
-      return;
+  public void stopCompilerProcess() {
+    final List<CompilerProcess> processes;
+    synchronized (this) {
+      processes = new ArrayList<>(myProcesses);
+      myProcesses.clear();
     }
 
-    try {
-      final String prefix = (commandNumber++) + ":";
-      final String commandToSend = prefix + command + "\n";
-      LOG.debug("SENDING: [" + commandToSend + "]");
-      myDataOutputStream.writeUTF(commandToSend);
-      myActiveListeners.put(prefix, listener);
+    for (CompilerProcess process : processes) {
+      process.stop();
     }
-    catch (IOException e) {
-      listener.textAvailable("Error: Can't start compilation: " + e.toString());
-      listener.compilationFinished();
+  }
+
+  private void stopCompilerProcess(final CompilerProcess process) {
+    synchronized (this) {
+      myProcesses.remove(process);
     }
+
+    process.stop();
   }
 
-  private synchronized void cancelAllCompilations(final boolean reportError) {
-    for (final Listener listener : myActiveListeners.values()) {
-      if (reportError) {
-        listener.textAvailable("Error: Compilation terminated");
-      }
-      listener.compilationFinished();
+  public synchronized void removeListener(final Listener listener) {
+    for (CompilerProcess process : myProcesses) {
+      process.myListeners.values().remove(listener);
     }
-    myActiveListeners.clear();
   }
 
-  public synchronized void stopCompilerProcess() {
-    cancelAllCompilations(true);
-    closeSocket();
+  public synchronized int getActiveCompilationsNumber() {
+    int result = 0;
+    for (CompilerProcess process : myProcesses) {
+      result += process.myListeners.size();
+    }
+    return result;
   }
 
-  private synchronized void closeSocket() {
-    // compiler process exits when socket closes, so it's enough just to close streams
+  private final class CompilerProcess {
+    private ServerSocket myServerSocket;
+    private volatile DataInputStream myDataInputStream;
+    private volatile DataOutputStream myDataOutputStream;
 
-    if (myDataInputStream != null) {
-      try {
-        myDataInputStream.close();
+    // output lines are dispatched to listeners without locking, so that processing of a big compiler output doesn't block other compilations
+    private final Map<String, Listener> myListeners = new ConcurrentHashMap<>();
+
+    private void handleInputLine(final String line) {
+      LOG.debug("RECEIVED: [" + line + "]");
+
+      final int colonPos = line.indexOf(":");
+      if (colonPos <= 0) {
+        LOG.error("Incorrect command: [" + line + "]");
+        return;
       }
-      catch (IOException ignored) {/**/}
-    }
 
-    if (myDataOutputStream != null) {
-      try {
-        myDataOutputStream.close();
+      final String prefix = line.substring(0, colonPos + 1);
+      final String text = line.substring(colonPos + 1);
+      final Listener listener = text.startsWith(COMPILATION_FINISHED) ? myListeners.remove(prefix) : myListeners.get(prefix);
+      if (listener == null) {
+        LOG.warn("No active listener for input line: [" + line + "]");  // could be message from cancelled compilation
+      }
+      else if (text.startsWith(COMPILATION_FINISHED)) {
+        listener.compilationFinished();
+      }
+      else {
+        listener.textAvailable(text);
       }
-      catch (IOException ignored) {/**/}
     }
 
-    if (myServerSocket != null) {
+    private synchronized void sendCompilationCommand(final String command, final Listener listener) {
+      final DataOutputStream dataOutputStream = myDataOutputStream;
+      if (dataOutputStream == null) {
+        listener.textAvailable("Error: Compiler process is not started.");
+        listener.compilationFinished();
+        return;
+      }
+
       try {
-        myServerSocket.close();
+        final String prefix = myCommandNumber.getAndIncrement() + ":";
+        final String commandToSend = prefix + command + "\n";
+        LOG.debug("SENDING: [" + commandToSend + "]");
+        // the listener must be registered before the compiler has a chance to answer
+        myListeners.put(prefix, listener);
+        dataOutputStream.writeUTF(commandToSend);
+      }
+      catch (IOException e) {
+        myListeners.values().remove(listener);
+        listener.textAvailable("Error: Can't start compilation: " + e.toString());
+        listener.compilationFinished();
       }
-      catch (IOException ignored) {/**/}
     }
 
-    myServerSocket = null;
-    myDataInputStream = null;
-    myDataOutputStream = null;
-  }
+    /**
+     * The socket is closed first: {@link #sendCompilationCommand} holds the same monitor, so after that no new listener can be
+     * registered, and the ones registered before are cancelled.
+     */
+    private void stop() {
+      closeSocket();
+      cancelAllCompilations(true);
+    }
 
-  public synchronized void removeListener(final Listener listener) {
-    String toRemove = null;
-    for (final Map.Entry<String, Listener> entry : myActiveListeners.entrySet()) {
-      if (entry.getValue() == listener) {
-        toRemove = entry.getKey();
-        break;
+    private void cancelAllCompilations(final boolean reportError) {
+      for (final String prefix : myListeners.keySet()) {
+        final Listener listener = myListeners.remove(prefix);
+        if (listener == null) continue; // finished concurrently
+
+        if (reportError) {
+          listener.textAvailable("Error: Compilation terminated");
+        }
+        listener.compilationFinished();
       }
     }
 
-    if (toRemove != null) {
-      myActiveListeners.remove(toRemove);
-    }
-  }
+    private synchronized void closeSocket() {
+      // compiler process exits when socket closes, so it's enough just to close streams
 
-  public synchronized int getActiveCompilationsNumber() {
-    return myActiveListeners.size();
+      if (myDataInputStream != null) {
+        try {
+          myDataInputStream.close();
+        }
+        catch (IOException ignored) {/**/}
+      }
+
+      if (myDataOutputStream != null) {
+        try {
+          myDataOutputStream.close();
+        }
+        catch (IOException ignored) {/**/}
+      }
+
+      if (myServerSocket != null) {
+        try {
+          myServerSocket.close();
+        }
+        catch (IOException ignored) {/**/}
+      }
+
+      myServerSocket = null;
+      myDataInputStream = null;
+      myDataOutputStream = null;
+    }
   }
 }
-
@@ -52,6 +52,7 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class CodeContext {
   private static final CodeContext EMPTY = new CodeContext(null, null, null);
@@ -68,15 +69,16 @@ public final class CodeContext {
   static final String[] GUMBO_ATTRIBUTES = {FlexStateElementNames.INCLUDE_IN, FlexStateElementNames.EXCLUDE_FROM,
     FlexStateElementNames.ITEM_CREATION_POLICY, FlexStateElementNames.ITEM_DESTRUCTION_POLICY};
 
-  // Component name to descriptor
+  // Component name to descriptor. Contexts are read without locks, and standard contexts get more descriptors while other namespaces
+  // of the module are being built, so both collections are concurrent.
   private final Map<String, ClassBackedElementDescriptor> myNameToDescriptorsMap;
   final GlobalSearchScope scope;
   final String namespace;
   final Module module;
-  private final Set<Object> dependencies = new HashSet<>();
+  private final Set<Object> dependencies = ConcurrentHashMap.newKeySet();
 
   CodeContext(String _namespace, Module _module, GlobalSearchScope scope) {
-    myNameToDescriptorsMap = new HashMap<>(100);
+    myNameToDescriptorsMap = new ConcurrentHashMap<>(100);
     namespace = _namespace;
     module = _module;
     this.scope = scope;
@@ -142,18 +144,25 @@ public final class CodeContext {
     final FlexBuildConfiguration bc = FlexBuildConfigurationManager.getInstance(module).getActiveConfiguration();
     if (bc == null) return EMPTY;
 
-    CodeContext codeContext;
+    final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
+
+    // fast path without locking for contexts that are already built
+    CodeContext codeContext = isStdNamespace(namespace)
+                              ? contextHolder.areSdkComponentsHandledForModule(module) ? getStandardContext(namespace, module) : null
+                              : contextHolder.getCodeContext(namespace, module, scope);
+    if (codeContext != null) return codeContext;
 
     synchronized (CodeContext.class) {
       if (isStdNamespace(namespace)) {
         return getStdCodeContext(namespace, module, scope, bc);
       }
 
-      final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
       codeContext = contextHolder.getCodeContext(namespace, module, scope);
 
       if (codeContext == null) {
+        final long start = System.nanoTime();
         codeContext = createCodeContext(namespace, module, bc, scope);
+        contextHolder.contextsBuilt(namespace, module, System.nanoTime() - start);
         if (codeContext.getAllDescriptorsSize() > 0) {
           // avoid adding of incorrect namespaces that appear during completion like "http://www.adobe.IntellijIdeaRulezzz com/2006/mxml"
           contextHolder.putCodeContext(namespace, module, scope, codeContext);
@@ -389,13 +398,19 @@ public final class CodeContext {
     final CodeContextHolder contextHolder = CodeContextHolder.getInstance(module.getProject());
 
     if (!contextHolder.areSdkComponentsHandledForModule(module)) { // handleAllStandardManifests only once per module
+      final long start = System.nanoTime();
       handleAllStandardManifests(module, bc);
       handleSwcFromSdk(module, scope, bc); //swc files attached to Flex SDK may contribute to standard context
       createCodeContextFromLibraries(namespace, module, scope, bc); // other libraries may contribute to standard context
       contextHolder.setSdkComponentsHandledForModule(module);
+      contextHolder.contextsBuilt(namespace, module, System.nanoTime() - start);
     }
 
-    final CodeContext context = contextHolder.getStandardContext(namespace, module);
+    return getStandardContext(namespace, module);
+  }
+
+  private static @NotNull CodeContext getStandardContext(final String namespace, final Module module) {
+    final CodeContext context = CodeContextHolder.getInstance(module.getProject()).getStandardContext(namespace, module);
     return context != null ? context : EMPTY;
   }
 
@@ -2,6 +2,7 @@
 package com.intellij.javascript.flex.mxml.schema;
 
 import com.intellij.openapi.components.Service;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.Pair;
@@ -10,34 +11,40 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Code contexts are built under the {@code CodeContext.class} lock, but they are read without locking, so all maps here are concurrent.
+ */
 @Service(Service.Level.PROJECT)
 public final class CodeContextHolder {
-  private final Set<Module> myModulesWithSdkComponentsHandled = new HashSet<>();
-  private final Map<String, Map<Module, CodeContext>> myStandardContexts = new HashMap<>();
-  private final Map<String, Map<Pair<Module, GlobalSearchScope>, CodeContext>> myNSToCodeContextMap = new HashMap<>();
+  private static final Logger LOG = Logger.getInstance(CodeContextHolder.class);
 
-  synchronized void clear() {
+  private final Set<Module> myModulesWithSdkComponentsHandled = ConcurrentHashMap.newKeySet();
+  private final Map<String, Map<Module, CodeContext>> myStandardContexts = new ConcurrentHashMap<>();
+  private final Map<String, Map<Pair<Module, GlobalSearchScope>, CodeContext>> myNSToCodeContextMap = new ConcurrentHashMap<>();
+
+  private final AtomicInteger myBuildCount = new AtomicInteger();
+  private final AtomicLong myBuildTimeNanos = new AtomicLong();
+
+  void clear() {
     myNSToCodeContextMap.clear();
     myStandardContexts.clear();
     myModulesWithSdkComponentsHandled.clear();
   }
 
-  public synchronized @Nullable CodeContext getCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
+  public @Nullable CodeContext getCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
     Map<Pair<Module, GlobalSearchScope>, CodeContext> map = myNSToCodeContextMap.get(namespace);
     return map != null ? map.get(Pair.create(module, scope)) : null;
   }
 
-  synchronized void putCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope, @NotNull CodeContext codeContext) {
-    var map = myNSToCodeContextMap.get(namespace);
-    if (map == null) {
-      map = new HashMap<>();
-      myNSToCodeContextMap.put(namespace, map);
-    }
-    map.put(Pair.create(module, scope), codeContext);
+  void putCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope, @NotNull CodeContext codeContext) {
+    myNSToCodeContextMap.computeIfAbsent(namespace, k -> new ConcurrentHashMap<>()).put(Pair.create(module, scope), codeContext);
   }
 
-  synchronized void clearCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
+  void clearCodeContext(@NotNull String namespace, @NotNull Module module, @NotNull GlobalSearchScope scope) {
     var map = myNSToCodeContextMap.get(namespace);
     if (map != null) {
       map.remove(Pair.create(module, scope));
@@ -48,12 +55,12 @@ public final class CodeContextHolder {
     return project.getService(CodeContextHolder.class);
   }
 
-  public synchronized @Nullable CodeContext getStandardContext(final String namespace, final Module module) {
+  public @Nullable CodeContext getStandardContext(final String namespace, final Module module) {
     final Map<Module, CodeContext> map = myStandardContexts.get(namespace);
     return map == null ? null : map.get(module);
   }
 
-  public synchronized Collection<String> getNamespaces(Module module, GlobalSearchScope scope) {
+  public Collection<String> getNamespaces(Module module, GlobalSearchScope scope) {
     final List<String> result = new ArrayList<>();
     for (final Map.Entry<String, Map<Module, CodeContext>> entry : myStandardContexts.entrySet()) {
       if (entry.getValue().containsKey(module)) {
@@ -68,20 +75,24 @@ public final class CodeContextHolder {
     return result;
   }
 
-  synchronized void putStandardContext(final String namespace, final Module module, final CodeContext codeContext) {
-    Map<Module, CodeContext> map = myStandardContexts.get(namespace);
-    if (map == null) {
-      map = new HashMap<>();
-      myStandardContexts.put(namespace, map);
-    }
-    map.put(module, codeContext);
+  void putStandardContext(final String namespace, final Module module, final CodeContext codeContext) {
+    myStandardContexts.computeIfAbsent(namespace, k -> new ConcurrentHashMap<>()).put(module, codeContext);
   }
 
-  synchronized boolean areSdkComponentsHandledForModule(final Module module) {
+  boolean areSdkComponentsHandledForModule(final Module module) {
     return myModulesWithSdkComponentsHandled.contains(module);
   }
 
-  synchronized boolean setSdkComponentsHandledForModule(final Module module) {
+  boolean setSdkComponentsHandledForModule(final Module module) {
     return myModulesWithSdkComponentsHandled.add(module);
   }
+
+  void contextsBuilt(final @NotNull String namespace, final @NotNull Module module, final long nanos) {
+    final int buildCount = myBuildCount.incrementAndGet();
+    final long totalNanos = myBuildTimeNanos.addAndGet(nanos);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Code contexts built for " + namespace + " in module " + module.getName() + " in " + nanos / 1_000_000 + " ms; " +
+                buildCount + " builds in " + totalNanos / 1_000_000 + " ms since project opening");
+    }
+  }
 }
@@ -3,12 +3,15 @@ package com.intellij.javascript.flex.resolve;
 
 import com.intellij.lang.javascript.index.JavaScriptIndex;
 import com.intellij.lang.javascript.psi.ecmal4.JSQualifiedNamedElement;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.util.JDOMUtil;
 import com.intellij.openapi.util.Key;
 import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileWithId;
+import com.intellij.openapi.vfs.newvfs.FileAttribute;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.impl.source.parsing.xml.XmlBuilder;
@@ -16,6 +19,9 @@ import com.intellij.psi.impl.source.parsing.xml.XmlBuilderDriver;
 import com.intellij.util.Consumer;
 import com.intellij.util.containers.Interner;
 import com.intellij.util.containers.Stack;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.IOUtil;
 import it.unimi.dsi.fastutil.objects.Object2LongMap;
 import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
 import org.jdom.Element;
@@ -23,13 +29,20 @@ import org.jdom.JDOMException;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 
 public final class SwcCatalogXmlUtil {
+  private static final Logger LOG = Logger.getInstance(SwcCatalogXmlUtil.class);
 
   /**
    * <code><b>Pair.first</b></code> is modification stamp of <i>catalog.xml</i> file when this user data was put<br>
@@ -47,6 +60,18 @@ public final class SwcCatalogXmlUtil {
   private static final Key<Pair<Long, ComponentFromManifest[]>> MOD_STAMP_AND_COMPONENTS_FROM_MANIFEST =
     Key.create("MOD_STAMP_AND_COMPONENTS_FROM_MANIFEST");
 
+  /**
+   * Parsed files are also stored in VFS file attributes together with the time stamp and the length of the file they were parsed from,
+   * so that catalog.xml and manifest files of all libraries are not parsed again after restart.
+   */
+  private static final int PERSISTENT_CACHE_VERSION = 1;
+  private static final FileAttribute TIMESTAMPS_FROM_CATALOG_XML_ATTRIBUTE =
+    new FileAttribute("flex.timestamps.from.catalog.xml", PERSISTENT_CACHE_VERSION, false);
+  private static final FileAttribute COMPONENTS_FROM_CATALOG_XML_ATTRIBUTE =
+    new FileAttribute("flex.components.from.catalog.xml", PERSISTENT_CACHE_VERSION, false);
+  private static final FileAttribute COMPONENTS_FROM_MANIFEST_ATTRIBUTE =
+    new FileAttribute("flex.components.from.manifest", PERSISTENT_CACHE_VERSION, false);
+
   private SwcCatalogXmlUtil() {
   }
 
@@ -155,7 +180,9 @@ public final class SwcCatalogXmlUtil {
 
     if (modStampAndSwfNameToQnameWithTimestampMap == null
         || modStampAndSwfNameToQnameWithTimestampMap.first != catalogFile.getModificationStamp()) {
-      final Map<String, Object2LongMap<String>> swfNameToQnameWithTimestampMap = parseTimestampsFromCatalogXml(catalogFile);
+      final Map<String, Object2LongMap<String>> swfNameToQnameWithTimestampMap =
+        parseWithPersistentCache(catalogFile, TIMESTAMPS_FROM_CATALOG_XML_ATTRIBUTE, TIMESTAMPS_EXTERNALIZER,
+                                 SwcCatalogXmlUtil::parseTimestampsFromCatalogXml);
       modStampAndSwfNameToQnameWithTimestampMap = Pair.create(catalogFile.getModificationStamp(), swfNameToQnameWithTimestampMap);
       catalogFile.putUserData(MOD_STAMP_AND_SWF_NAME_TO_QNAME_WITH_TIMESTAMP_MAP, modStampAndSwfNameToQnameWithTimestampMap);
     }
@@ -223,7 +250,9 @@ public final class SwcCatalogXmlUtil {
     Pair<Long, ComponentFromCatalogXml[]> modStampAndComponents = catalogFile.getUserData(MOD_STAMP_AND_COMPONENTS_FROM_CATALOG_XML);
 
     if (modStampAndComponents == null || modStampAndComponents.first != catalogFile.getModificationStamp()) {
-      final ComponentFromCatalogXml[] componentsFromCatalogXml = parseComponentsFromCatalogXml(catalogFile);
+      final ComponentFromCatalogXml[] componentsFromCatalogXml =
+        parseWithPersistentCache(catalogFile, COMPONENTS_FROM_CATALOG_XML_ATTRIBUTE, COMPONENTS_FROM_CATALOG_XML_EXTERNALIZER,
+                                 SwcCatalogXmlUtil::parseComponentsFromCatalogXml);
       modStampAndComponents = Pair.create(catalogFile.getModificationStamp(), componentsFromCatalogXml);
       catalogFile.putUserData(MOD_STAMP_AND_COMPONENTS_FROM_CATALOG_XML, modStampAndComponents);
     }
@@ -304,7 +333,9 @@ public final class SwcCatalogXmlUtil {
     Pair<Long, ComponentFromManifest[]> modStampAndComponents = manifestFile.getUserData(MOD_STAMP_AND_COMPONENTS_FROM_MANIFEST);
 
     if (modStampAndComponents == null || modStampAndComponents.first != manifestFile.getModificationStamp()) {
-      final ComponentFromManifest[] componentsFromManifests = parseManifestFile(manifestFile);
+      final ComponentFromManifest[] componentsFromManifests =
+        parseWithPersistentCache(manifestFile, COMPONENTS_FROM_MANIFEST_ATTRIBUTE, COMPONENTS_FROM_MANIFEST_EXTERNALIZER,
+                                 SwcCatalogXmlUtil::parseManifestFile);
       modStampAndComponents = Pair.create(manifestFile.getModificationStamp(), componentsFromManifests);
       manifestFile.putUserData(MOD_STAMP_AND_COMPONENTS_FROM_MANIFEST, modStampAndComponents);
     }
@@ -359,4 +390,138 @@ public final class SwcCatalogXmlUtil {
 
     return result.toArray(new ComponentFromManifest[0]);
   }
+
+  private static <T> @NotNull T parseWithPersistentCache(final @NotNull VirtualFile file,
+                                                         final @NotNull FileAttribute attribute,
+                                                         final @NotNull DataExternalizer<T> externalizer,
+                                                         final @NotNull Function<? super VirtualFile, ? extends T> parser) {
+    if (!(file instanceof VirtualFileWithId)) {
+      return parser.apply(file);
+    }
+
+    final long timeStamp = file.getTimeStamp();
+    final long length = file.getLength();
+
+    try (DataInputStream in = attribute.readFileAttribute(file)) {
+      if (in != null && DataInputOutputUtil.readTIME(in) == timeStamp && DataInputOutputUtil.readLONG(in) == length) {
+        return externalizer.read(in);
+      }
+    }
+    catch (IOException e) {
+      LOG.debug("Failed to read cached data for " + file.getPath(), e);
+    }
+
+    final T result = parser.apply(file);
+
+    try (DataOutputStream out = attribute.writeFileAttribute(file)) {
+      DataInputOutputUtil.writeTIME(out, timeStamp);
+      DataInputOutputUtil.writeLONG(out, length);
+      externalizer.save(out, result);
+    }
+    catch (IOException e) {
+      LOG.debug("Failed to cache data for " + file.getPath(), e);
+    }
+
+    return result;
+  }
+
+  private static final DataExternalizer<Map<String, Object2LongMap<String>>> TIMESTAMPS_EXTERNALIZER = new DataExternalizer<>() {
+    @Override
+    public void save(final @NotNull DataOutput out, final Map<String, Object2LongMap<String>> swfNameToQnameWithTimestampMap)
+      throws IOException {
+      DataInputOutputUtil.writeINT(out, swfNameToQnameWithTimestampMap.size());
+      for (Map.Entry<String, Object2LongMap<String>> entry : swfNameToQnameWithTimestampMap.entrySet()) {
+        IOUtil.writeUTF(out, entry.getKey());
+        DataInputOutputUtil.writeINT(out, entry.getValue().size());
+        for (Object2LongMap.Entry<String> qNameAndTimestamp : entry.getValue().object2LongEntrySet()) {
+          IOUtil.writeUTF(out, qNameAndTimestamp.getKey());
+          DataInputOutputUtil.writeLONG(out, qNameAndTimestamp.getLongValue());
+        }
+      }
+    }
+
+    @Override
+    public Map<String, Object2LongMap<String>> read(final @NotNull DataInput in) throws IOException {
+      final int swfCount = DataInputOutputUtil.readINT(in);
+      final Map<String, Object2LongMap<String>> swfNameToQnameWithTimestampMap = new HashMap<>(swfCount);
+      for (int i = 0; i < swfCount; i++) {
+        final String swfName = IOUtil.readUTF(in);
+        final int qNameCount = DataInputOutputUtil.readINT(in);
+        final Object2LongMap<String> qNameWithTimestampMap = new Object2LongOpenHashMap<>(qNameCount);
+        for (int j = 0; j < qNameCount; j++) {
+          qNameWithTimestampMap.put(IOUtil.readUTF(in), DataInputOutputUtil.readLONG(in));
+        }
+        swfNameToQnameWithTimestampMap.put(swfName, qNameWithTimestampMap);
+      }
+      return swfNameToQnameWithTimestampMap;
+    }
+  };
+
+  // all components of a library usually share the same uri, so distinct uris are written once and components refer to them by index
+  private static final DataExternalizer<ComponentFromCatalogXml[]> COMPONENTS_FROM_CATALOG_XML_EXTERNALIZER = new DataExternalizer<>() {
+    @Override
+    public void save(final @NotNull DataOutput out, final ComponentFromCatalogXml[] components) throws IOException {
+      final List<String> uris = new ArrayList<>();
+      final Map<String, Integer> uriToIndex = new HashMap<>();
+      for (ComponentFromCatalogXml component : components) {
+        if (uriToIndex.putIfAbsent(component.myUri, uris.size()) == null) {
+          uris.add(component.myUri);
+        }
+      }
+
+      DataInputOutputUtil.writeINT(out, uris.size());
+      for (String uri : uris) {
+        IOUtil.writeUTF(out, uri);
+      }
+
+      DataInputOutputUtil.writeINT(out, components.length);
+      for (ComponentFromCatalogXml component : components) {
+        IOUtil.writeUTF(out, component.myName);
+        IOUtil.writeUTF(out, component.myClassFqn);
+        // uri index and presence of the icon are packed into a single varint
+        DataInputOutputUtil.writeINT(out, uriToIndex.get(component.myUri) << 1 | (component.myIcon != null ? 1 : 0));
+        if (component.myIcon != null) {
+          IOUtil.writeUTF(out, component.myIcon);
+        }
+      }
+    }
+
+    @Override
+    public ComponentFromCatalogXml[] read(final @NotNull DataInput in) throws IOException {
+      final String[] uris = new String[DataInputOutputUtil.readINT(in)];
+      for (int i = 0; i < uris.length; i++) {
+        uris[i] = IOUtil.readUTF(in);
+      }
+
+      final ComponentFromCatalogXml[] components = new ComponentFromCatalogXml[DataInputOutputUtil.readINT(in)];
+      for (int i = 0; i < components.length; i++) {
+        final String name = IOUtil.readUTF(in);
+        final String classFqn = IOUtil.readUTF(in);
+        final int uriIndexAndIcon = DataInputOutputUtil.readINT(in);
+        final String icon = (uriIndexAndIcon & 1) != 0 ? IOUtil.readUTF(in) : null;
+        components[i] = new ComponentFromCatalogXml(name, classFqn, uris[uriIndexAndIcon >>> 1], icon);
+      }
+      return components;
+    }
+  };
+
+  private static final DataExternalizer<ComponentFromManifest[]> COMPONENTS_FROM_MANIFEST_EXTERNALIZER = new DataExternalizer<>() {
+    @Override
+    public void save(final @NotNull DataOutput out, final ComponentFromManifest[] components) throws IOException {
+      DataInputOutputUtil.writeINT(out, components.length);
+      for (ComponentFromManifest component : components) {
+        IOUtil.writeUTF(out, component.myComponentName);
+        IOUtil.writeUTF(out, component.myClassFqn);
+      }
+    }
+
+    @Override
+    public ComponentFromManifest[] read(final @NotNull DataInput in) throws IOException {
+      final ComponentFromManifest[] components = new ComponentFromManifest[DataInputOutputUtil.readINT(in)];
+      for (int i = 0; i < components.length; i++) {
+        components[i] = new ComponentFromManifest(IOUtil.readUTF(in), IOUtil.readUTF(in));
+      }
+      return components;
+    }
+  };
 }
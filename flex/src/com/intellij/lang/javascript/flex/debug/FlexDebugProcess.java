@@ -61,6 +61,7 @@ import com.intellij.util.Alarm;
 import com.intellij.util.ArrayUtilRt;
 import com.intellij.util.Function;
 import com.intellij.util.PathUtil;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.*;
 import com.intellij.xdebugger.breakpoints.XBreakpointHandler;
 import com.intellij.xdebugger.breakpoints.XBreakpointProperties;
@@ -81,6 +82,8 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import static com.intellij.lang.javascript.flex.run.FlashRunnerParameters.AirMobileDebugTransport;
 import static com.intellij.lang.javascript.flex.run.FlashRunnerParameters.AirMobileRunTarget;
@@ -168,6 +171,14 @@ public class FlexDebugProcess extends XDebugProcess {
   };
 
   private boolean suspended;
+
+  // fdb responses with children of objects by object reference like '#123.'. Expanding the same objects in Variables, Watches and
+  // tooltips repeats the same round-trips, so responses are reused until a command that may change the state of the VM is sent.
+  private final Map<String, String> myObjectChildrenCache = new ConcurrentHashMap<>();
+  private static final @NonNls String[] READ_ONLY_COMMAND_PREFIXES = {"frame", "info ", "bt", "show "};
+  // children listing sent by FlexValue.computeChildren; other 'print' expressions may call methods and getters that change the state
+  private static final Pattern OBJECT_CHILDREN_COMMAND = Pattern.compile("print #\\d+\\.");
+
   private boolean fdbWaitingForPlayerStateReached;
   private boolean startupDone;
   private ConsoleView myConsoleView;
@@ -970,6 +981,10 @@ public class FlexDebugProcess extends XDebugProcess {
   void doSendCommandText(final DebuggerCommand command) throws IOException {
     final String text = command.getText();
 
+    if (!myObjectChildrenCache.isEmpty() && !isReadOnlyCommand(text)) {
+      myObjectChildrenCache.clear();
+    }
+
     setSuspended(
       command.getOutputProcessingMode() == CommandOutputProcessingType.NO_PROCESSING && command.getEndVMState() == VMState.SUSPENDED);
     log("Sent:" + text);
@@ -1175,6 +1190,23 @@ public class FlexDebugProcess extends XDebugProcess {
     }
   }
 
+  private static boolean isReadOnlyCommand(final String text) {
+    for (String line : StringUtil.splitByLines(text)) {
+      if (!ContainerUtil.exists(READ_ONLY_COMMAND_PREFIXES, line::startsWith) && !OBJECT_CHILDREN_COMMAND.matcher(line).matches()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Nullable String getCachedObjectChildren(final @NotNull String objectReference) {
+    return myObjectChildrenCache.get(objectReference);
+  }
+
+  void cacheObjectChildren(final @NotNull String objectReference, final @NotNull String response) {
+    myObjectChildrenCache.put(objectReference, response);
+  }
+
   private void setSuspended(final boolean suspended) {
     this.suspended = suspended;
   }
@@ -7,6 +7,7 @@ import com.intellij.lang.javascript.index.JavaScriptIndex;
 import com.intellij.lang.javascript.psi.*;
 import com.intellij.lang.javascript.psi.ecmal4.JSClass;
 import com.intellij.lang.javascript.psi.resolve.JSInheritanceUtil;
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.DumbService;
@@ -398,72 +399,85 @@ public final class FlexValue extends XValue {
       return;
     }
 
+    final String cachedResult = myDebugProcess.getCachedObjectChildren(expression);
+    if (cachedResult != null) {
+      // the VM hasn't run any code since these children were evaluated
+      ApplicationManager.getApplication().executeOnPooledThread(() -> addChildrenFromResponse(node, cachedResult, typeFromFlexValueResult));
+      return;
+    }
+
     final FlexStackFrame.EvaluateCommand
       command = myFlexStackFrame.new EvaluateCommand(expression, null) {
       @Override
       CommandOutputProcessingMode doOnTextAvailable(final @NonNls String resultS) {
-        StringTokenizer tokenizer = new StringTokenizer(resultS, "\r\n");
-
-        // skip first token; it contains $-prefix followed by myResult: $6 = [Object 30860193, class='__AS3__.vec::Vector.<String>']
-        tokenizer.nextToken();
-
-        final LinkedHashMap<String, FlexValue> fieldNameToFlexValueMap = new LinkedHashMap<>(tokenizer.countTokens());
-
-        final NodeClassInfo nodeClassInfo =
-          DumbService.getInstance(myDebugProcess.getSession().getProject()).runReadActionInSmartMode(() -> {
-            final Project project = myDebugProcess.getSession().getProject();
-            final JSClass jsClass = mySourcePosition == null
-                                    ? null
-                                    : findJSClass(project,
-                                                  ModuleUtilCore.findModuleForFile(mySourcePosition.getFile(), project),
-                                                  typeFromFlexValueResult);
-            return jsClass == null ? null : NodeClassInfo.getNodeClassInfo(jsClass);
-          });
-
-        while (tokenizer.hasMoreElements()) {
-          final String s = tokenizer.nextToken().trim();
-          if (s.isEmpty()) continue;
-          final int delimIndex = s.indexOf(FlexStackFrame.DELIM);
-          if (delimIndex == -1) {
-            FlexDebugProcess.log("Unrecognized string:" + s);
-            continue;
-          }
-          final String fieldName = s.substring(0, delimIndex);
-          final String result = s.substring(delimIndex + FlexStackFrame.DELIM.length());
-
-          if (result.startsWith("[Setter ")) {
-            // such values do not give any useful information:
-            // [Setter 62, name='Child@3d613bb::staticSetter']
-            // [Setter 78]
-            continue;
-          }
+        myDebugProcess.cacheObjectChildren(expression, resultS);
+        addChildrenFromResponse(node, resultS, typeFromFlexValueResult);
+        return CommandOutputProcessingMode.DONE;
+      }
+    };
 
-          String evaluatedPath = myExpression;
+    myDebugProcess.sendCommand(command);
+  }
 
-          if (!fieldName.isEmpty() && Character.isDigit(fieldName.charAt(0))) {
-            evaluatedPath += "[\"" + fieldName + "\"]";
-          }
-          else {
-            evaluatedPath += "." + fieldName;
-          }
-          // either parameter of static function from scopechain or a field. Static functions from scopechain look like following:
-          // // [Object 52571545, class='Main$/staticFunction']
-          final ValueType valueType =
-            typeFromFlexValueResult != null && typeFromFlexValueResult.indexOf('/') > -1 ? ValueType.Parameter : ValueType.Field;
-          final FlexValue flexValue =
-            new FlexValue(myFlexStackFrame, myDebugProcess, mySourcePosition, fieldName, evaluatedPath, result, FlexValue.this.myResult,
-                          valueType);
-
-          addValueCheckingDuplicates(flexValue, fieldNameToFlexValueMap);
-        }
+  private void addChildrenFromResponse(final @NotNull XCompositeNode node,
+                                       final @NonNls String resultS,
+                                       final @Nullable String typeFromFlexValueResult) {
+    StringTokenizer tokenizer = new StringTokenizer(resultS, "\r\n");
 
-        addChildren(node, fieldNameToFlexValueMap, nodeClassInfo);
+    // skip first token; it contains $-prefix followed by myResult: $6 = [Object 30860193, class='__AS3__.vec::Vector.<String>']
+    tokenizer.nextToken();
 
-        return CommandOutputProcessingMode.DONE;
+    final LinkedHashMap<String, FlexValue> fieldNameToFlexValueMap = new LinkedHashMap<>(tokenizer.countTokens());
+
+    final NodeClassInfo nodeClassInfo =
+      DumbService.getInstance(myDebugProcess.getSession().getProject()).runReadActionInSmartMode(() -> {
+        final Project project = myDebugProcess.getSession().getProject();
+        final JSClass jsClass = mySourcePosition == null
+                                ? null
+                                : findJSClass(project,
+                                              ModuleUtilCore.findModuleForFile(mySourcePosition.getFile(), project),
+                                              typeFromFlexValueResult);
+        return jsClass == null ? null : NodeClassInfo.getNodeClassInfo(jsClass);
+      });
+
+    while (tokenizer.hasMoreElements()) {
+      final String s = tokenizer.nextToken().trim();
+      if (s.isEmpty()) continue;
+      final int delimIndex = s.indexOf(FlexStackFrame.DELIM);
+      if (delimIndex == -1) {
+        FlexDebugProcess.log("Unrecognized string:" + s);
+        continue;
       }
-    };
+      final String fieldName = s.substring(0, delimIndex);
+      final String result = s.substring(delimIndex + FlexStackFrame.DELIM.length());
 
-    myDebugProcess.sendCommand(command);
+      if (result.startsWith("[Setter ")) {
+        // such values do not give any useful information:
+        // [Setter 62, name='Child@3d613bb::staticSetter']
+        // [Setter 78]
+        continue;
+      }
+
+      String evaluatedPath = myExpression;
+
+      if (!fieldName.isEmpty() && Character.isDigit(fieldName.charAt(0))) {
+        evaluatedPath += "[\"" + fieldName + "\"]";
+      }
+      else {
+        evaluatedPath += "." + fieldName;
+      }
+      // either parameter of static function from scopechain or a field. Static functions from scopechain look like following:
+      // // [Object 52571545, class='Main$/staticFunction']
+      final ValueType valueType =
+        typeFromFlexValueResult != null && typeFromFlexValueResult.indexOf('/') > -1 ? ValueType.Parameter : ValueType.Field;
+      final FlexValue flexValue =
+        new FlexValue(myFlexStackFrame, myDebugProcess, mySourcePosition, fieldName, evaluatedPath, result, myResult,
+                      valueType);
+
+      addValueCheckingDuplicates(flexValue, fieldNameToFlexValueMap);
+    }
+
+    addChildren(node, fieldNameToFlexValueMap, nodeClassInfo);
   }
 
   @Override
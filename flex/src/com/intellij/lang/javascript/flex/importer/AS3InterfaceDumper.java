@@ -115,6 +115,12 @@ class AS3InterfaceDumper extends AbstractDumpProcessor {
 
   @Override
   public void dumpStat(final @NotNull String stat) {}
+
+  @Override
+  public boolean needsMethodBodies() {
+    return false;
+  }
+
   private static boolean needsQuoting(final String value) {
     return !doNotNeedQoting.contains(value);
   }
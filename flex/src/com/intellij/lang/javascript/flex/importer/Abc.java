@@ -13,6 +13,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.function.Consumer;
 
 final class Abc {
   static final @NonNls String TAB = "  ";
@@ -286,6 +287,8 @@ final class Abc {
   static final Multiname OpaqueAssetsType = new Multiname(null, "Class");
 
   private final FlexByteCodeInformationProcessor processor;
+  // statistics and errors found while parsing are reported on dump, parsing doesn't touch the processor and may run concurrently
+  private final List<Consumer<FlexByteCodeInformationProcessor>> parseMessages = new ArrayList<>();
   int totalSize;
   final int[] opSizes = new int[256];
 
@@ -296,7 +299,7 @@ final class Abc {
     data.setPosition(0);
     magic = data.readInt();
 
-    _processor.dumpStat("magic " + Integer.toString(magic, 16) + "\n");
+    dumpStat("magic " + Integer.toString(magic, 16) + "\n");
 
     if (magic != (46 << 16 | 14) && magic != (46 << 16 | 15) && magic != (46 << 16 | 16)) {
       throw new Error("not an abc file.  magic=" + Integer.toString(magic, 16));
@@ -324,7 +327,10 @@ final class Abc {
     parseInstanceInfos();
     parseClassInfos();
     parseScriptInfos();
-    parseMethodBodies();
+    // method bodies are the last and usually the biggest part of abc, they are not needed to build stubs
+    if (processor.needsMethodBodies()) {
+      parseMethodBodies();
+    }
   }
 
   private static Object[] buildSparseArray(int index, @NonNls String s1) {
@@ -333,7 +339,19 @@ final class Abc {
     return result;
   }
 
+  private void dumpStat(@NotNull @NonNls String stat) {
+    parseMessages.add(p -> p.dumpStat(stat));
+  }
+
+  private void hasError(@NotNull String error) {
+    parseMessages.add(p -> p.hasError(error));
+  }
+
   public void dump(String indent) {
+    for (Consumer<FlexByteCodeInformationProcessor> message : parseMessages) {
+      message.accept(processor);
+    }
+
     for (Traits t : scripts) {
       processor.dumpTopLevelTraits(this, t, indent);
     }
@@ -414,7 +432,7 @@ final class Abc {
       doubles[i] = data.readDouble();
     }
 
-    reportAboutPercentage("Cpool numbers size ", data, start, processor);
+    reportAboutPercentage("Cpool numbers size ", start);
     start = data.getPosition();
 
     // strings
@@ -425,7 +443,7 @@ final class Abc {
       strings[i] = data.readUTFBytes(readU32());
     }
 
-    reportAboutPercentage("Cpool strings count " + n + " size ", data, start, processor);
+    reportAboutPercentage("Cpool strings count " + n + " size ", start);
     start = data.getPosition();
 
     // namespaces
@@ -446,7 +464,7 @@ final class Abc {
       }
     }
 
-    reportAboutPercentage("Cpool namespaces count " + n + " size ", data, start, processor);
+    reportAboutPercentage("Cpool namespaces count " + n + " size ", start);
     start = data.getPosition();
 
     // namespace sets
@@ -460,7 +478,7 @@ final class Abc {
       }
     }
 
-    reportAboutPercentage("Cpool nssets count " + n + " size ", data, start, processor);
+    reportAboutPercentage("Cpool nssets count " + n + " size ", start);
     start = data.getPosition();
 
     // multinames
@@ -557,7 +575,7 @@ final class Abc {
       }
     } while (hasSomething && doneSomething);
 
-    reportAboutPercentage("Cpool names count " + n + " size ", data, start, processor);
+    reportAboutPercentage("Cpool names count " + n + " size ", start);
     start = data.getPosition();
 
     namespaces[0] = PUBLIC_NS;
@@ -613,7 +631,7 @@ final class Abc {
           }
           else {
             if (defaults[kind] == null) {
-              processor.hasError("ERROR kind=" + kind + " method_id " + i + "\n");
+              hasError("ERROR kind=" + kind + " method_id " + i + "\n");
             }
             else {
               m.optionalValues[k] = new Multiname(null, defaults[kind][index].toString());
@@ -652,7 +670,7 @@ final class Abc {
       }
     }
 
-    reportAboutPercentage("MethodInfo count " + method_count + " size ", data, start, processor);
+    reportAboutPercentage("MethodInfo count " + method_count + " size ", start);
   }
 
   void parseMetadataInfos() {
@@ -699,7 +717,7 @@ final class Abc {
       parseTraits(t);
     }
 
-    reportAboutPercentage("InstanceInfo size ", data, start, processor);
+    reportAboutPercentage("InstanceInfo size ", start);
   }
 
   static final TraitType[] traitTypes = TraitType.values();
@@ -713,7 +731,7 @@ final class Abc {
       TraitType kind;
 
       if (traitTypeTag >= traitTypes.length) {
-        processor.hasError("error trait kind " + traitTypeTag + "\n");
+        hasError("error trait kind " + traitTypeTag + "\n");
         kind = null;
       }
       else {
@@ -796,7 +814,7 @@ final class Abc {
       t.init.kind = TraitType.Method;
       parseTraits(t);
     }
-    reportAboutPercentage("ClassInfo size ", data, start, processor);
+    reportAboutPercentage("ClassInfo size ", start);
   }
 
   void parseScriptInfos() {
@@ -816,7 +834,7 @@ final class Abc {
       parseTraits(t);
     }
 
-    reportAboutPercentage("ScriptInfo size ", data, start, processor);
+    reportAboutPercentage("ScriptInfo size ", start);
   }
 
   void parseMethodBodies() {
@@ -831,10 +849,7 @@ final class Abc {
       int maxScopeDepth = readU32();
       m.max_scope = maxScopeDepth - initScopeDepth;
       int code_length = readU32();
-      m.code = new ByteBuffer();
-      m.code.setLittleEndian();
-
-      if (code_length > 0) data.readBytes(m.code, code_length);
+      m.code = data.slice(code_length);
 
       int ex_count = readU32();
       for (int j = 0; j < ex_count; j++) {
@@ -849,11 +864,11 @@ final class Abc {
       parseTraits(m.activation = new Traits());
     }
 
-    reportAboutPercentage("MethodBodies size ", data, start, processor);
+    reportAboutPercentage("MethodBodies size ", start);
   }
 
-  private static void reportAboutPercentage(String s, ByteBuffer data, int start, @NotNull FlexByteCodeInformationProcessor processor) {
-    processor.dumpStat(s + (data.getPosition() - start) + " " + (int)100f * (data.getPosition() - start) / data.bytesSize() + " %\n");
+  private void reportAboutPercentage(String s, int start) {
+    dumpStat(s + (data.getPosition() - start) + " " + (int)100f * (data.getPosition() - start) / data.bytesSize() + " %\n");
   }
 
 }
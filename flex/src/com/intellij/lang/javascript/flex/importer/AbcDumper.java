@@ -24,6 +24,11 @@ class AbcDumper extends AbstractDumpProcessor {
     sb.append(error);
   }
 
+  @Override
+  public boolean needsMethodBodies() {
+    return true;
+  }
+
   @Override
   protected String appendModifiers(MemberInfo member, String attr) {
     attr += (member instanceof MethodInfo && (((MethodInfo)member).flags & Abc.NATIVE) != 0 ? "native ":"");
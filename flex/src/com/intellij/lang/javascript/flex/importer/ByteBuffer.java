@@ -6,22 +6,43 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.zip.InflaterInputStream;
 
 /**
  * @author Maxim.Mossienko
 */
 class ByteBuffer {
-  private byte[] bytes;
+  private static final byte[] EMPTY_BYTES = new byte[0];
+  // do not trust huge sizes from file headers, the buffer grows anyway if the content is bigger
+  private static final int MAX_EXPECTED_SIZE = 64 * 1024 * 1024;
+
+  // the buffer may be a view of a part of a bigger array shared with other buffers, see slice()
+  private byte[] bytes = EMPTY_BYTES;
+  private int offset;
+  private int size;
   private int position;
   private boolean littleEndian;
 
   void read(@NotNull InputStream inputStream) throws IOException {
+    read(inputStream, -1);
+  }
+
+  /**
+   * @param expectedSize size of the stream content if known from some header, or -1
+   */
+  void read(@NotNull InputStream inputStream, int expectedSize) throws IOException {
     try (inputStream) {
-      bytes = readStream(inputStream);
+      setBytes(readStream(inputStream, expectedSize));
     }
   }
 
+  private void setBytes(byte @NotNull [] bytes) {
+    this.bytes = bytes;
+    offset = 0;
+    size = bytes.length;
+  }
+
   void setLittleEndian() {
     littleEndian = true;
   }
@@ -29,10 +50,10 @@ class ByteBuffer {
   int readInt() {
     int result;
     if (littleEndian) {
-      result = (((bytes[position + 3] & 0xFF) << 8 | (bytes[position + 2] & 0xFF)) << 16) + ((bytes[position + 1] & 0xFF) << 8) | (bytes[position] & 0xFF);
+      result = (((getByte(position + 3) & 0xFF) << 8 | (getByte(position + 2) & 0xFF)) << 16) + ((getByte(position + 1) & 0xFF) << 8) | (getByte(position) & 0xFF);
     }
     else {
-      result = (((bytes[position] & 0xFF) << 8 | (bytes[position + 1] & 0xFF)) << 16) + ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+      result = (((getByte(position) & 0xFF) << 8 | (getByte(position + 1) & 0xFF)) << 16) + ((getByte(position + 2) & 0xFF) << 8) | (getByte(position + 3) & 0xFF);
     }
     position += 4;
     return result;
@@ -47,68 +68,78 @@ class ByteBuffer {
   }
 
   public int bytesSize() {
-    return bytes.length;
+    return size;
   }
 
   public void uncompress() throws IOException {
-    final InflaterInputStream zipInputStream = new InflaterInputStream(new ByteArrayInputStream(bytes));
-
-    bytes = readStream(zipInputStream);
-
-    zipInputStream.close();
+    try (InflaterInputStream zipInputStream = new InflaterInputStream(new ByteArrayInputStream(bytes, offset, size))) {
+      setBytes(readStream(zipInputStream, -1));
+    }
   }
 
-  private static byte[] readStream(final InputStream zipInputStream) throws IOException {
-    final byte[] buf = new byte[8192];
-    byte[] result = new byte[8192];
+  /**
+   * Reads the stream right into the result array, so there's no copying at all if the expected size is correct.
+   */
+  private static byte[] readStream(final InputStream inputStream, int expectedSize) throws IOException {
+    byte[] result = new byte[expectedSize > 0 ? Math.min(expectedSize, MAX_EXPECTED_SIZE) : 8192];
     int total = 0;
 
     while (true) {
-      int read = zipInputStream.read(buf);
-      if (read == -1) break;
-      if (total + read >= result.length) {
-        byte[] newresult = new byte[result.length * 2];
-        System.arraycopy(result, 0, newresult, 0, total);
-        result = newresult;
+      if (total == result.length) {
+        // the expected size may be exact, check for the end of the stream before growing
+        final int next = inputStream.read();
+        if (next == -1) break;
+        result = Arrays.copyOf(result, result.length * 2);
+        result[total++] = (byte)next;
       }
 
-      System.arraycopy(buf, 0, result, total, read);
+      int read = inputStream.read(result, total, result.length - total);
+      if (read == -1) break;
       total += read;
     }
 
-    final byte[] realResult = new byte[total];
-    System.arraycopy(result, 0, realResult, 0, total);
-    return realResult;
+    return total == result.length ? result : Arrays.copyOf(result, total);
   }
 
   public int readUnsignedByte() {
-    return bytes[position++] & 0xFF;
+    return getByte(position++) & 0xFF;
   }
 
   public int readByte() {
-    return bytes[position++];
+    return getByte(position++);
   }
 
   public int readUnsignedShort() {
     int result;
     if (littleEndian) {
-      result = (bytes[position + 1] & 0xFF) << 8 | (bytes[position] & 0xFF);
+      result = (getByte(position + 1) & 0xFF) << 8 | (getByte(position) & 0xFF);
     }
     else {
-      result = (bytes[position] & 0xFF) << 8 | (bytes[position + 1] & 0xFF);
+      result = (getByte(position) & 0xFF) << 8 | (getByte(position + 1) & 0xFF);
     }
     position += 2;
     return result;
   }
 
-  public void readBytes(ByteBuffer data2, int length) {
-    data2.bytes = new byte[length];
-    System.arraycopy(bytes, position, data2.bytes, 0, length);
+  /**
+   * Returns a buffer for the next {@code length} bytes of this one and skips them. The content is shared, not copied.
+   */
+  public ByteBuffer slice(int length) {
+    if (length < 0 || position + length > size) {
+      throw new ArrayIndexOutOfBoundsException("slice of " + length + " bytes at " + position + ", buffer size " + size);
+    }
+
+    final ByteBuffer result = new ByteBuffer();
+    result.bytes = bytes;
+    result.offset = offset + position;
+    result.size = length;
+    result.littleEndian = littleEndian;
     position += length;
+    return result;
   }
 
   public boolean eof() {
-    return position >= bytes.length;
+    return position >= size;
   }
 
   public String readUTFBytes(int i) {
@@ -139,7 +170,9 @@ class ByteBuffer {
   }
 
   public byte getByte(int i) {
-    return bytes[i];
+    // a slice must not read the bytes that follow it in the shared array
+    if (i >= size) throw new ArrayIndexOutOfBoundsException(i);
+    return bytes[offset + i];
   }
 
   public int getPosition() {
@@ -42,4 +42,6 @@ interface FlexByteCodeInformationProcessor {
   void processMetadata(MetaData metaData);
 
   void processClass(SlotInfo slotInfo, Abc abc, String attr, String indent);
+
+  boolean needsMethodBodies();
 }
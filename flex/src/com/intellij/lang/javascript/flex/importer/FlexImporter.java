@@ -7,6 +7,7 @@ import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
+import java.util.zip.InflaterInputStream;
 
 /**
  * Produced from abcdump.as
@@ -17,6 +18,8 @@ public final class FlexImporter {
   private static final int ABC_VER3 = 46 << 16 | 16;
   private static final int SWF_MAGIC = 67 | 87 << 8 | 83 << 16;
   private static final int SWF_MAGIC2 = 70 | 87 << 8 | 83 << 16;
+  // signature, version and uncompressed file length
+  private static final int SWF_HEADER_LENGTH = 8;
 
   public static void main(String[] args) throws IOException {
     if (args.length < 1) {
@@ -71,34 +74,80 @@ public final class FlexImporter {
   }
 
   private static void processFlexByteCode(final @NotNull InputStream in, @NotNull FlexByteCodeInformationProcessor processor) throws IOException {
-    ByteBuffer data = new ByteBuffer();
-    data.read(in);
-    data.setLittleEndian();
-    if (data.bytesSize() == 0) return;
-    int version = data.readUnsignedInt();
-
-    if (version == ABC_VER || version == ABC_VER2 || version == ABC_VER3) {
-      Abc abc = new Abc(data, processor);
-      abc.dump("");
+    final InputStream input = in.markSupported() ? in : new BufferedInputStream(in);
+    try (input) {
+      // the header is peeked first, so that a compressed swf is inflated right from the stream into a buffer of the known size
+      input.mark(SWF_HEADER_LENGTH);
+      ByteBuffer header = new ByteBuffer();
+      header.read(new ByteArrayInputStream(input.readNBytes(SWF_HEADER_LENGTH)));
+      header.setLittleEndian();
+      input.reset();
+
+      if (header.bytesSize() == 0) return;
+      int version = header.readUnsignedInt();
+
+      if (version == ABC_VER || version == ABC_VER2 || version == ABC_VER3) {
+        ByteBuffer data = new ByteBuffer();
+        data.read(input);
+        data.setLittleEndian();
+        data.readUnsignedInt(); // version
+        Abc abc = new Abc(data, processor);
+        abc.dump("");
+      }
+      else if ((version & SWF_MAGIC) == SWF_MAGIC) {
+        final int uncompressedSize = header.bytesSize() == SWF_HEADER_LENGTH ? header.readUnsignedInt() - SWF_HEADER_LENGTH : -1;
+        input.skipNBytes(SWF_HEADER_LENGTH);
+        final CountingInputStream compressed = new CountingInputStream(input);
+        ByteBuffer udata = new ByteBuffer();
+        udata.setLittleEndian();
+        udata.read(new InflaterInputStream(compressed), uncompressedSize);
+        compressed.skipToEnd();
+        processor.dumpStat("decompressed swf " + compressed.myCount + " -> " + udata.bytesSize() + "\n");
+        udata.setPosition(0);
+        new Swf(udata, processor);
+      }
+      else if ((version & SWF_MAGIC2) == SWF_MAGIC2) {
+        ByteBuffer data = new ByteBuffer();
+        data.read(input, header.bytesSize() == SWF_HEADER_LENGTH ? header.readUnsignedInt() : -1);
+        data.setLittleEndian();
+        data.setPosition(SWF_HEADER_LENGTH); // skip header and length
+        new Swf(data, processor);
+      }
+      else {
+        processor.hasError("unknown format " + version + ", swf version: " + (version >> 24) + "\n");
+      }
+    }
+  }
+
+  private static final class CountingInputStream extends FilterInputStream {
+    private long myCount;
+
+    private CountingInputStream(final @NotNull InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int result = super.read();
+      if (result != -1) myCount++;
+      return result;
     }
-    else if ((version & SWF_MAGIC) == SWF_MAGIC) {
-      final int delta = 8;
-      data.setPosition(delta);
-      ByteBuffer udata = new ByteBuffer();
-      udata.setLittleEndian();
-      data.readBytes(udata, data.bytesSize() - delta);
-      int csize = udata.bytesSize();
-      udata.uncompress();
-      processor.dumpStat("decompressed swf " + csize + " -> " + udata.bytesSize() + "\n");
-      udata.setPosition(0);
-      new Swf(udata, processor);
+
+    @Override
+    public int read(byte @NotNull [] b, int off, int len) throws IOException {
+      final int result = super.read(b, off, len);
+      if (result > 0) myCount += result;
+      return result;
     }
-    else if ((version & SWF_MAGIC2) == SWF_MAGIC2) {
-      data.setPosition(8); // skip header and length
-      new Swf(data, processor);
+
+    @Override
+    public void close() {
+      // the rest of the stream is skipped after inflating, the stream itself is closed by the caller
     }
-    else {
-      processor.hasError("unknown format " + version + ", swf version: " + (version >> 24) + "\n");
+
+    private void skipToEnd() throws IOException {
+      final byte[] buffer = new byte[8192];
+      while (read(buffer, 0, buffer.length) != -1) ;
     }
   }
 }
@@ -1,5 +1,7 @@
 package com.intellij.lang.javascript.flex.importer;
 
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.progress.ProgressManager;
 import org.jetbrains.annotations.NonNls;
 
 /**
@@ -184,10 +186,10 @@ class Swf {
           length -= (data.getPosition() - pos1);
           // fall through
         case stagDoABC:
-          ByteBuffer data2 = new ByteBuffer();
-          data2.setLittleEndian();
-          data.readBytes(data2, length);
-          new Abc(data2, processor).dump(processor.getAbcInSwfIndent());
+          // the importer also runs standalone, without an application
+          if (ApplicationManager.getApplication() != null) ProgressManager.checkCanceled();
+          // each block is dumped as soon as it is parsed, so only one parsed block is held at a time
+          new Abc(data.slice(length), processor).dump(processor.getAbcInSwfIndent());
           processor.append("\n");
           break;
         default:
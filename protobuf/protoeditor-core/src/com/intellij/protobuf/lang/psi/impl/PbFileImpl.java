@@ -22,6 +22,7 @@ import com.google.common.collect.ImmutableSetMultimap;
 import com.intellij.extapi.psi.PsiFileBase;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.util.RecursionManager;
 import com.intellij.protobuf.ide.PbCompositeModificationTracker;
 import com.intellij.protobuf.ide.settings.PbProjectSettings;
 import com.intellij.protobuf.lang.PbFileType;
@@ -64,7 +65,12 @@ public class PbFileImpl extends PsiFileBase implements PbFile {
 
   @Override
   public @Nullable PbSyntaxStatement getSyntaxStatement() {
-    return PsiTreeUtil.getChildOfType(this, PbSyntaxStatement.class);
+    return CachedValuesManager.getCachedValue(
+        this,
+        () ->
+            Result.create(
+              PsiTreeUtil.getChildOfType(this, PbSyntaxStatement.class),
+              PbCompositeModificationTracker.byElement(this)));
   }
 
   @Override
@@ -89,6 +95,13 @@ public class PbFileImpl extends PsiFileBase implements PbFile {
 
   @Override
   public @NotNull SyntaxLevel getSyntaxLevel() {
+    // Checked by every annotator for every element of the file, so parse the syntax statement once.
+    return CachedValuesManager.getCachedValue(
+        this,
+        () -> Result.create(computeSyntaxLevel(), PbCompositeModificationTracker.byElement(this)));
+  }
+
+  private @NotNull SyntaxLevel computeSyntaxLevel() {
     PbSyntaxStatement statement = getSyntaxStatement();
     SyntaxLevel level = null;
     if (statement != null) {
@@ -298,36 +311,62 @@ public class PbFileImpl extends PsiFileBase implements PbFile {
   }
 
   private List<PbFile> getImportedFileList(boolean includePrivate) {
+    if (!includePrivate) {
+      return getPublicImportClosure(this);
+    }
     Set<PbFile> importedFiles = new LinkedHashSet<>();
-    findImportsRecursively(this, importedFiles, includePrivate);
+    for (PbImportStatement pbImport : getImportStatements()) {
+      PbFile importedFile = resolveImport(this, pbImport);
+      if (importedFile != null && importedFiles.add(importedFile)) {
+        importedFiles.addAll(getPublicImportClosure(importedFile));
+      }
+    }
     return new ArrayList<>(importedFiles);
   }
 
-  private static void findImportsRecursively(
-      PbFile file, Collection<PbFile> imports, boolean includePrivate) {
+  /**
+   * Returns the files in the transitive set of public imports of the given file. The result is cached per file, so that a chain of
+   * public imports is walked once rather than again for every file that imports its head.
+   */
+  private static List<PbFile> getPublicImportClosure(PbFile file) {
+    return CachedValuesManager.getCachedValue(
+        file,
+        () ->
+            Result.create(
+                computePublicImportClosure(file), PbCompositeModificationTracker.byElement(file)));
+  }
+
+  private static List<PbFile> computePublicImportClosure(PbFile file) {
+    Set<PbFile> importedFiles = new LinkedHashSet<>();
     for (PbImportStatement pbImport : file.getImportStatements()) {
-      if (!includePrivate && !pbImport.isPublic()) {
-        continue;
-      }
-      PbImportName importName = pbImport.getImportName();
-      if (importName == null) {
+      if (!pbImport.isPublic()) {
         continue;
       }
-      PsiReference ref = importName.getReference();
-      if (ref == null) {
+      PbFile importedFile = resolveImport(file, pbImport);
+      if (importedFile == null || !importedFiles.add(importedFile)) {
         continue;
       }
-      PsiElement possibleFile;
-      if (PbProjectSettings.getInstance(file.getProject()).isIndexBasedResolveEnabled() && ref instanceof PsiPolyVariantReference) {
-        possibleFile = Arrays.stream(((PsiPolyVariantReference)ref).multiResolve(false))
-          .map(it -> it.getElement())
-          .filter(it -> it instanceof PbFile)
-          .findFirst().orElse(null);
+      List<PbFile> closure =
+          RecursionManager.doPreventingRecursion(
+              importedFile, false, () -> getPublicImportClosure(importedFile));
+      if (closure != null) {
+        importedFiles.addAll(closure);
+      } else {
+        // Dependency cycle, its closure is being computed right now. Walk it without the cache.
+        findImportsRecursively(importedFile, importedFiles, /* includePrivate= */ false);
       }
-      else {
-        possibleFile = ref.resolve();
+    }
+    return List.copyOf(importedFiles);
+  }
+
+  private static void findImportsRecursively(
+      PbFile file, Collection<PbFile> imports, boolean includePrivate) {
+    for (PbImportStatement pbImport : file.getImportStatements()) {
+      if (!includePrivate && !pbImport.isPublic()) {
+        continue;
       }
-      if (possibleFile instanceof PbFile importedFile) {
+      PbFile importedFile = resolveImport(file, pbImport);
+      if (importedFile != null) {
         if (imports.contains(importedFile)) {
           // TODO(volkman): do something with dependency cycle?
           continue;
@@ -339,6 +378,28 @@ public class PbFileImpl extends PsiFileBase implements PbFile {
     }
   }
 
+  private static @Nullable PbFile resolveImport(PbFile file, PbImportStatement pbImport) {
+    PbImportName importName = pbImport.getImportName();
+    if (importName == null) {
+      return null;
+    }
+    PsiReference ref = importName.getReference();
+    if (ref == null) {
+      return null;
+    }
+    PsiElement possibleFile;
+    if (PbProjectSettings.getInstance(file.getProject()).isIndexBasedResolveEnabled() && ref instanceof PsiPolyVariantReference) {
+      possibleFile = Arrays.stream(((PsiPolyVariantReference)ref).multiResolve(false))
+        .map(it -> it.getElement())
+        .filter(it -> it instanceof PbFile)
+        .findFirst().orElse(null);
+    }
+    else {
+      possibleFile = ref.resolve();
+    }
+    return possibleFile instanceof PbFile importedFile ? importedFile : null;
+  }
+
   @Override
   public boolean processDeclarations(
       @NotNull PsiScopeProcessor processor,
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2019 Google LLC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.intellij.protobuf.lang.resolve;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.Service;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.ModificationTracker;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import org.jetbrains.annotations.NotNull;
+
+/** Counts changes of the {@link FileResolveProvider} extensions registered in a project. */
+@Service(Service.Level.PROJECT)
+final class FileResolveProviderModificationTracker extends SimpleModificationTracker implements Disposable {
+  FileResolveProviderModificationTracker(@NotNull Project project) {
+    FileResolveProvider.EP_NAME.addChangeListener(project, this::incModificationCount, this);
+  }
+
+  static @NotNull ModificationTracker getInstance(@NotNull Project project) {
+    return project.getService(FileResolveProviderModificationTracker.class);
+  }
+
+  @Override
+  public void dispose() {
+  }
+}
@@ -18,21 +18,37 @@ package com.intellij.protobuf.lang.resolve;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleUtilCore;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.UserDataHolder;
 import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.protobuf.ide.settings.PbProjectSettings;
 import com.intellij.protobuf.lang.psi.PbFile;
 import com.intellij.protobuf.lang.resolve.FileResolveProvider.ChildEntry;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.PsiManager;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValue;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import com.intellij.psi.util.CachedValuesManager;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /** A helper class for finding files given path names. */
 public final class PbFileResolver {
 
+  // Import path -> files found by all providers, an empty list if the path is unresolved. Kept per module or per project.
+  private static final Key<CachedValue<Map<String, List<VirtualFile>>>> RESOLVED_PATHS_KEY =
+      Key.create("protobuf.resolved.import.paths");
+  // Directory import path -> child entries reported by all providers, used by import completion.
+  private static final Key<CachedValue<Map<String, Collection<ChildEntry>>>> CHILD_ENTRIES_KEY =
+      Key.create("protobuf.import.path.child.entries");
+
   public static @NotNull List<PbFile> findFilesForContext(
       @NotNull String path, @NotNull PsiElement context) {
     Module module = ModuleUtilCore.findModuleForPsiElement(context);
@@ -47,14 +63,14 @@ public final class PbFileResolver {
     if (!isValidImportPath(path)) {
       return Collections.emptyList();
     }
-    return findFiles(module.getProject(), (provider) -> provider.findFile(path, module));
+    return findFiles(module.getProject(), module, path, (provider) -> provider.findFile(path, module));
   }
 
   public static @NotNull List<PbFile> findFilesInProject(@NotNull String path, @NotNull Project project) {
     if (!isValidImportPath(path)) {
       return Collections.emptyList();
     }
-    return findFiles(project, (provider) -> provider.findFile(path, project));
+    return findFiles(project, project, path, (provider) -> provider.findFile(path, project));
   }
 
   public static @NotNull Collection<ChildEntry> getChildNamesForContext(
@@ -72,7 +88,7 @@ public final class PbFileResolver {
     if (!isValidImportPath(path)) {
       return Collections.emptyList();
     }
-    return getChildEntries(module.getProject(), provider -> provider.getChildEntries(path, module));
+    return getChildEntries(module.getProject(), module, path, provider -> provider.getChildEntries(path, module));
   }
 
   public static @NotNull Collection<ChildEntry> getChildNamesInProject(
@@ -80,7 +96,7 @@ public final class PbFileResolver {
     if (!isValidImportPath(path)) {
       return Collections.emptyList();
     }
-    return getChildEntries(project, provider -> provider.getChildEntries(path, project));
+    return getChildEntries(project, project, path, provider -> provider.getChildEntries(path, project));
   }
 
   public static boolean isValidImportPath(@NotNull String path) {
@@ -101,20 +117,55 @@ public final class PbFileResolver {
   }
 
   static GlobalSearchScope getUnionScope(@NotNull Project project) {
-    GlobalSearchScope scope = GlobalSearchScope.EMPTY_SCOPE;
-    for (FileResolveProvider provider : getProviders(project)) {
-      scope = scope.union(provider.getSearchScope(project));
-    }
-    return scope;
+    return CachedValuesManager.getManager(project).getCachedValue(
+        project,
+        () -> {
+          GlobalSearchScope scope = GlobalSearchScope.EMPTY_SCOPE;
+          for (FileResolveProvider provider : getProviders(project)) {
+            scope = scope.union(provider.getSearchScope(project));
+          }
+          return Result.create(scope, getResolveDependencies(project));
+        });
+  }
+
+  /**
+   * What the providers find depends on the set of providers, on the file tree, on the project roots and on the configured import
+   * paths, but not on the contents of proto files.
+   */
+  private static Object @NotNull [] getResolveDependencies(@NotNull Project project) {
+    return new Object[] {
+      FileResolveProviderModificationTracker.getInstance(project),
+      VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+      ProjectRootModificationTracker.getInstance(project),
+      PbProjectSettings.getModificationTracker(project)
+    };
+  }
+
+  private static <T> @NotNull Map<String, T> getCache(
+      @NotNull Project project, @NotNull UserDataHolder moduleOrProject, @NotNull Key<CachedValue<Map<String, T>>> key) {
+    return CachedValuesManager.getManager(project).getCachedValue(
+        moduleOrProject,
+        key,
+        () -> Result.create(new ConcurrentHashMap<>(), getResolveDependencies(project)),
+        false);
   }
 
   private static @NotNull List<PbFile> findFiles(
-      Project project, Function<FileResolveProvider, VirtualFile> fn) {
-    Set<PbFile> results = new LinkedHashSet<>();
+      Project project,
+      UserDataHolder moduleOrProject,
+      String path,
+      Function<FileResolveProvider, VirtualFile> fn) {
+    Map<String, List<VirtualFile>> cache = getCache(project, moduleOrProject, RESOLVED_PATHS_KEY);
+    List<VirtualFile> files = cache.get(path);
+    if (files == null) {
+      // Not computeIfAbsent(): providers may resolve other paths while being asked for this one.
+      files = findFiles(project, fn);
+      cache.putIfAbsent(path, files);
+    }
 
-    for (FileResolveProvider provider : getProviders(project)) {
-      VirtualFile file = fn.apply(provider);
-      if (file == null || !file.exists()) {
+    List<PbFile> results = new ArrayList<>(files.size());
+    for (VirtualFile file : files) {
+      if (!file.isValid()) {
         continue;
       }
       PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
@@ -122,7 +173,35 @@ public final class PbFileResolver {
         results.add((PbFile) psiFile);
       }
     }
-    return new ArrayList<>(results);
+    return results;
+  }
+
+  private static @NotNull List<VirtualFile> findFiles(
+      Project project, Function<FileResolveProvider, VirtualFile> fn) {
+    Set<VirtualFile> results = new LinkedHashSet<>();
+
+    for (FileResolveProvider provider : getProviders(project)) {
+      VirtualFile file = fn.apply(provider);
+      if (file == null || !file.exists()) {
+        continue;
+      }
+      results.add(file);
+    }
+    return results.isEmpty() ? Collections.emptyList() : List.copyOf(results);
+  }
+
+  private static @NotNull Collection<ChildEntry> getChildEntries(
+      Project project,
+      UserDataHolder moduleOrProject,
+      String path,
+      Function<FileResolveProvider, Collection<ChildEntry>> fn) {
+    Map<String, Collection<ChildEntry>> cache = getCache(project, moduleOrProject, CHILD_ENTRIES_KEY);
+    Collection<ChildEntry> entries = cache.get(path);
+    if (entries == null) {
+      entries = Collections.unmodifiableCollection(getChildEntries(project, fn));
+      cache.putIfAbsent(path, entries);
+    }
+    return entries;
   }
 
   private static @NotNull Collection<ChildEntry> getChildEntries(
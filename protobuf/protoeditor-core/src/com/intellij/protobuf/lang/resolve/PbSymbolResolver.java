@@ -17,11 +17,13 @@ package com.intellij.protobuf.lang.resolve;
 
 import com.google.common.collect.*;
 import com.intellij.openapi.util.Condition;
+import com.intellij.protobuf.ide.PbCompositeModificationTracker;
 import com.intellij.protobuf.lang.psi.PbFile;
 import com.intellij.protobuf.lang.psi.PbSymbol;
 import com.intellij.protobuf.lang.psi.PbSymbolOwner;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.QualifiedName;
-import com.intellij.util.SmartList;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -30,19 +32,37 @@ import java.util.stream.Collectors;
 public class PbSymbolResolver {
 
   private final Multimap<QualifiedName, PbSymbol> symbols;
+  // Names of the symbols that can own other symbols. Computed lazily, used to find the scope of partially-qualified names.
+  private volatile Set<QualifiedName> symbolOwnerNames;
 
   private PbSymbolResolver(Multimap<QualifiedName, PbSymbol> symbols) {
     this.symbols = symbols;
   }
 
-  /** Returns a PbSymbolResolver that can resolve symbols in the given file and its imports. */
+  /**
+   * Returns a PbSymbolResolver that can resolve symbols in the given file and its imports. The resolver is cached until the file or
+   * any of its imports change.
+   */
   public static PbSymbolResolver forFile(PbFile file) {
-    return new PbSymbolResolver(convertJdkMapToGuava(file.getFullQualifiedSymbolMap()));
+    return CachedValuesManager.getCachedValue(
+      file,
+      () ->
+        Result.create(
+          new PbSymbolResolver(convertJdkMapToGuava(file.getFullQualifiedSymbolMap())),
+          PbCompositeModificationTracker.byElement(file)));
   }
 
-  /** Returns a PbSymbolResolver that can resolve symbols exported by the given file. */
+  /**
+   * Returns a PbSymbolResolver that can resolve symbols exported by the given file. The resolver is cached until the file or any of
+   * its imports change.
+   */
   public static PbSymbolResolver forFileExports(PbFile file) {
-    return new PbSymbolResolver(convertJdkMapToGuava(file.getExportedQualifiedSymbolMap()));
+    return CachedValuesManager.getCachedValue(
+      file,
+      () ->
+        Result.create(
+          new PbSymbolResolver(convertJdkMapToGuava(file.getExportedQualifiedSymbolMap())),
+          PbCompositeModificationTracker.byElement(file)));
   }
 
   /** Returns a PbSymbolResolver that can resolve symbols exported by the given files. */
@@ -56,9 +76,9 @@ public class PbSymbolResolver {
   }
 
   private static Multimap<QualifiedName, PbSymbol> convertJdkMapToGuava(Map<QualifiedName, Collection<PbSymbol>> jdkMap) {
-    Multimap<QualifiedName, PbSymbol> multimap = Multimaps.newListMultimap(new HashMap<>(), SmartList::new);
-    jdkMap.forEach((key, value) -> multimap.putAll(key, value));
-    return multimap;
+    ImmutableListMultimap.Builder<QualifiedName, PbSymbol> builder = ImmutableListMultimap.builder();
+    jdkMap.forEach(builder::putAll);
+    return builder.build();
   }
 
   /** Returns an empty PbSymbolResolver. */
@@ -117,8 +137,12 @@ public class PbSymbolResolver {
   }
 
   public List<PbResolveResult> resolveName(QualifiedName name, Condition<PbSymbol> condition) {
-    return symbols
-      .get(name)
+    Collection<PbSymbol> candidates = symbols.get(name);
+    if (candidates.isEmpty()) {
+      // Most of the lookups made while walking up the scopes find nothing.
+      return Collections.emptyList();
+    }
+    return candidates
       .stream()
       .filter(condition::value)
       .map(PbResolveResult::create)
@@ -175,6 +199,16 @@ public class PbSymbolResolver {
   }
 
   private boolean symbolOwnerExists(QualifiedName symbol) {
-    return !resolveName(symbol, ResolveFilters.symbolOwner()).isEmpty();
+    Set<QualifiedName> names = symbolOwnerNames;
+    if (names == null) {
+      names = new HashSet<>();
+      for (Map.Entry<QualifiedName, PbSymbol> entry : symbols.entries()) {
+        if (ResolveFilters.symbolOwner().value(entry.getValue())) {
+          names.add(entry.getKey());
+        }
+      }
+      symbolOwnerNames = names;
+    }
+    return names.contains(symbol);
   }
 }
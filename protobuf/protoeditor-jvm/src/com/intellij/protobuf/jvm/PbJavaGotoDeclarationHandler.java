@@ -20,6 +20,7 @@ import com.intellij.codeInsight.navigation.actions.GotoDeclarationHandler;
 import com.intellij.openapi.editor.Editor;
 import com.intellij.openapi.project.DumbService;
 import com.intellij.openapi.project.Project;
+import com.intellij.protobuf.jvm.names.JavaNameGenerator;
 import com.intellij.protobuf.jvm.names.NameGeneratorSelector;
 import com.intellij.protobuf.jvm.names.NameMatcher;
 import com.intellij.protobuf.lang.psi.*;
@@ -27,15 +28,15 @@ import com.intellij.protobuf.lang.psi.util.PbPsiUtil;
 import com.intellij.protobuf.shared.gencode.ProtoFromSourceComments;
 import com.intellij.psi.*;
 import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.util.CachedValueProvider.Result;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.SmartList;
 import com.intellij.util.containers.ContainerUtil;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 /**
  * Handles goto declaration from java generated code -> .proto files.
@@ -143,7 +144,7 @@ public class PbJavaGotoDeclarationHandler implements GotoDeclarationHandler {
     List<PsiElement> results,
     List<PsiElement> matchedTypeElements) {
     boolean searchEnumValues = context.resolvedElement instanceof PsiEnumConstant;
-    for (PbSymbol symbol : ContainerUtil.flatten(file.getLocalQualifiedSymbolMap().values())) {
+    for (PbSymbol symbol : findCandidateSymbols(file, context.javaClass)) {
       if (PbPsiUtil.isEnumElement(symbol)) {
         PbEnumDefinition enumDefinition = (PbEnumDefinition)symbol;
         for (NameMatcher matcher : nameMatchers) {
@@ -197,7 +198,7 @@ public class PbJavaGotoDeclarationHandler implements GotoDeclarationHandler {
     List<PsiElement> results,
     List<PsiElement> matchedTypeElements) {
     boolean searchFields = context.resolvedElement instanceof PsiMember;
-    for (PbSymbol symbol : ContainerUtil.flatten(file.getLocalQualifiedSymbolMap().values())) {
+    for (PbSymbol symbol : findCandidateSymbols(file, context.javaClass)) {
       if (PbPsiUtil.isMessageElement(symbol)) {
         PbMessageType message = (PbMessageType)symbol;
         for (NameMatcher matcher : nameMatchers) {
@@ -223,4 +224,64 @@ public class PbJavaGotoDeclarationHandler implements GotoDeclarationHandler {
       }
     }
   }
+
+  /**
+   * Returns the messages, enums and oneofs of the file that may have generated the given class. A Builder class is looked up by its
+   * containing class as well. The name matchers still decide which of them really match.
+   */
+  private static Collection<PbSymbol> findCandidateSymbols(PbFile file, PsiClass javaClass) {
+    Map<String, List<PbSymbol>> symbolsByClassName = getTypeSymbolsByJavaClassName(file);
+    Set<PbSymbol> results = new LinkedHashSet<>();
+    String className = javaClass.getQualifiedName();
+    if (className != null) {
+      results.addAll(symbolsByClassName.getOrDefault(className, Collections.emptyList()));
+    }
+    PsiClass containingClass = javaClass.getContainingClass();
+    String containingClassName = containingClass != null ? containingClass.getQualifiedName() : null;
+    if (containingClassName != null) {
+      results.addAll(symbolsByClassName.getOrDefault(containingClassName, Collections.emptyList()));
+    }
+    return results;
+  }
+
+  /**
+   * Maps fully-qualified names of the java classes generated from the file to the messages, enums and oneofs they are generated from.
+   * Computed once per file, so that finding declarations for every class of a large generated file doesn't run the name matchers
+   * over all symbols of the proto file again and again. Generated names depend only on the proto file itself.
+   */
+  private static Map<String, List<PbSymbol>> getTypeSymbolsByJavaClassName(PbFile file) {
+    return CachedValuesManager.getCachedValue(
+      file, () -> Result.create(computeTypeSymbolsByJavaClassName(file), file));
+  }
+
+  private static Map<String, List<PbSymbol>> computeTypeSymbolsByJavaClassName(PbFile file) {
+    Map<String, List<PbSymbol>> result = new HashMap<>();
+    List<JavaNameGenerator> generators = NameGeneratorSelector.selectForFile(file);
+    for (PbSymbol symbol : ContainerUtil.flatten(file.getLocalQualifiedSymbolMap().values())) {
+      for (JavaNameGenerator generator : generators) {
+        if (PbPsiUtil.isMessageElement(symbol)) {
+          for (String className : generator.messageClassNames((PbMessageType)symbol)) {
+            addTypeSymbol(result, className, symbol);
+          }
+        }
+        else if (PbPsiUtil.isEnumElement(symbol)) {
+          addTypeSymbol(result, generator.enumClassName((PbEnumDefinition)symbol), symbol);
+        }
+        else if (PbPsiUtil.isOneofElement(symbol)) {
+          addTypeSymbol(result, generator.oneofEnumClassName((PbOneofDefinition)symbol), symbol);
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void addTypeSymbol(Map<String, List<PbSymbol>> result, @Nullable String className, PbSymbol symbol) {
+    if (className == null) {
+      return;
+    }
+    List<PbSymbol> symbols = result.computeIfAbsent(className, k -> new SmartList<>());
+    if (!symbols.contains(symbol)) {
+      symbols.add(symbol);
+    }
+  }
 }
@@ -13,9 +13,12 @@ import org.jetbrains.qodana.staticAnalysis.StaticAnalysisDispatchers
 import org.jetbrains.qodana.staticAnalysis.profile.QodanaProfile
 import org.jetbrains.qodana.staticAnalysis.sarif.fingerprints.BaselineEqualityV1
 import org.jetbrains.qodana.staticAnalysis.sarif.fingerprints.fingerprintOf
+import java.util.concurrent.TimeUnit
 
 private val LOG = logger<AsyncInspectionToolResultWriter>()
 
+private const val MAX_ROWS_PER_TRANSACTION = 5000
+
 internal class AsyncInspectionToolResultWriter(
   private val scope: CoroutineScope,
   val project: Project,
@@ -26,16 +29,28 @@ internal class AsyncInspectionToolResultWriter(
   private val channel: Channel<List<Problem>> = Channel(1000)
   private val gson = SarifUtil.createGson()
 
+  // accessed only by the writer job
+  private var writtenRows = 0L
+  private var transactions = 0L
+  private var writeNanos = 0L
+
   private val writerJob: Job =
     // WHY IO? – Database stuff, need to investigate and refactor
     // TODO – run database on IO dispatcher, not whole function stack
     scope.launch(StaticAnalysisDispatchers.IO, CoroutineStart.LAZY) {
       LOG.info("Async result writer started")
       for (problems in channel) {
-        for (problem in problems) {
-          writeProblem(problem, profileState)
+        val rows = problems.mapNotNullTo(mutableListOf()) { toResultRow(it, profileState) }
+        // whatever has been queued meanwhile goes to the same transactions
+        while (rows.size < MAX_ROWS_PER_TRANSACTION) {
+          val queued = channel.tryReceive().getOrNull() ?: break
+          queued.mapNotNullTo(rows) { toResultRow(it, profileState) }
+        }
+        for (transactionRows in rows.chunked(MAX_ROWS_PER_TRANSACTION)) {
+          writeRows(transactionRows)
         }
       }
+      logStatistics()
     }
 
   private val consumerScope: CoroutineScope  = scope.childScope()
@@ -61,22 +76,37 @@ internal class AsyncInspectionToolResultWriter(
     scope.coroutineContext.job.cancelAndJoin()
   }
 
-  private suspend fun writeProblem(problem: Problem, profileState: QodanaProfile.QodanaProfileState) {
+  private suspend fun toResultRow(problem: Problem, profileState: QodanaProfile.QodanaProfileState): ResultRow? {
     try {
-      val sarif = problem.getSarif(macroManager, database) ?: return
+      val sarif = problem.getSarif(macroManager, database) ?: return null
       val inspectionGroup = profileState.stateByInspectionId[sarif.ruleId]!!.inspectionGroup.name
       val fingerprint = requireNotNull(sarif.fingerprintOf(BaselineEqualityV1)) { "Fingerprints not generated" }
+      // serialized once, the same json goes to the related problems table
+      val json = gson.toJson(sarif, Result::class.java)
+      return ResultRow(inspectionGroup, sarif.ruleId, fingerprint, json, problem.getRelatedProblemHashFrom())
+    }
+    catch (e: CancellationException) {
+      throw e
+    }
+    catch(e: Exception) {
+      LOG.warn(e)
+      return null
+    }
+  }
+
+  private suspend fun writeRows(rows: List<ResultRow>) {
+    if (rows.isEmpty()) return
+    try {
+      val start = System.nanoTime()
       withContext(StaticAnalysisDispatchers.IO) {
-        database.insert(inspectionGroup,
-                        sarif.ruleId,
-                        fingerprint,
-                        gson.toJson(sarif, Result::class.java))
-
-        val hashFrom = problem.getRelatedProblemHashFrom()
-        if (hashFrom != null) {
-          database.insertRelatedProblem(hashFrom, gson.toJson(sarif, Result::class.java))
+        database.inTransaction {
+          for (row in rows) {
+            if (writeRow(row)) writtenRows++
+          }
         }
       }
+      writeNanos += System.nanoTime() - start
+      transactions++
     }
     catch (e: CancellationException) {
       throw e
@@ -85,4 +115,36 @@ internal class AsyncInspectionToolResultWriter(
       LOG.warn(e)
     }
   }
+
+  /**
+   * A failed row is logged and skipped, so that it doesn't roll back the rest of the transaction.
+   */
+  private fun writeRow(row: ResultRow): Boolean {
+    try {
+      database.insert(row.inspectionGroup, row.inspectionId, row.fingerprint, row.json)
+      if (row.relatedProblemHash != null) {
+        database.insertRelatedProblem(row.relatedProblemHash, row.json)
+      }
+      return true
+    }
+    catch (e: Exception) {
+      LOG.warn(e)
+      return false
+    }
+  }
+
+  private fun logStatistics() {
+    val writeMillis = TimeUnit.NANOSECONDS.toMillis(writeNanos)
+    val rowsPerSecond = if (writeMillis > 0) writtenRows * 1000 / writeMillis else writtenRows
+    LOG.info("Async result writer finished: $writtenRows results in $transactions transactions, " +
+             "$writeMillis ms in database ($rowsPerSecond rows/s)")
+  }
+
+  private class ResultRow(
+    val inspectionGroup: String,
+    val inspectionId: String,
+    val fingerprint: String,
+    val json: String,
+    val relatedProblemHash: String?,
+  )
 }
@@ -13,6 +13,8 @@ import org.jetbrains.sqlite.ObjectBinder
 import org.jetbrains.sqlite.SqliteConnection
 import org.jetbrains.sqlite.SqlitePreparedStatement
 import java.nio.file.Path
+import java.util.concurrent.locks.ReentrantLock
+import kotlin.concurrent.withLock
 
 @Language("SQLite")
 private const val TABLE_SCHEMA = """
@@ -48,6 +50,17 @@ private const val TABLE_SCHEMA = """
   COMMIT;
 """
 
+/**
+ * The database is created anew for every run and is of no use if the run doesn't complete,
+ * so there is no need to wait for the data to reach the disk after each transaction.
+ */
+@Language("SQLite")
+private const val RUN_DATABASE_PRAGMAS = "PRAGMA synchronous = OFF;"
+
+private const val BEGIN_TRANSACTION = "BEGIN TRANSACTION;"
+private const val COMMIT_TRANSACTION = "COMMIT;"
+private const val ROLLBACK_TRANSACTION = "ROLLBACK;"
+
 private const val INSERT_STATEMENT = "INSERT INTO results VALUES (?, ?, ?, ?);"
 private const val SELECT_STATEMENT = "SELECT inspection, hash, json FROM results WHERE inspectionGroup = ? ORDER BY inspection, hash;"
 
@@ -71,10 +84,16 @@ internal const val QODANA_DB_FILENAME = "tool-results.db"
  *  Note, there is no lock file provided, that prevents opening non-closed DB.
  */
 class QodanaToolResultDatabase private constructor(private val connection: SqliteConnection) : AutoCloseable by connection {
+  /**
+   * Guards the writes, so that the ones from other threads don't become a part of a transaction opened by [inTransaction].
+   */
+  private val writeLock = ReentrantLock()
+
   companion object {
     fun create(path: Path): QodanaToolResultDatabase {
       NioFiles.deleteRecursively(path.resolve(QODANA_DB_FILENAME))
       val db = open(path)
+      db.connection.execute(RUN_DATABASE_PRAGMAS)
       db.connection.execute(TABLE_SCHEMA)
       @Language("SQLite") val createMetricsTableSchema: String = MetricTable.getSchemaForAllTables()
       db.connection.execute(createMetricsTableSchema)
@@ -85,23 +104,48 @@ class QodanaToolResultDatabase private constructor(private val connection: Sqlit
       QodanaToolResultDatabase(SqliteConnection(path.resolve(QODANA_DB_FILENAME)))
   }
 
+  /**
+   * Runs [action] in a single transaction, so that the rows it inserts are committed at once instead of one by one.
+   * Writes from other threads wait until the transaction is finished. The transaction is rolled back if [action] throws.
+   */
+  fun <T> inTransaction(action: () -> T): T = writeLock.withLock {
+    connection.execute(BEGIN_TRANSACTION)
+    val result = try {
+      action()
+    }
+    catch (e: Throwable) {
+      connection.execute(ROLLBACK_TRANSACTION)
+      throw e
+    }
+    connection.execute(COMMIT_TRANSACTION)
+    result
+  }
+
   fun insert(inspectionGroup: String, inspectionId: String, hash: String, json: String) {
-    connection.execute(INSERT_STATEMENT, arrayOf(inspectionGroup, inspectionId, hash, json))
+    writeLock.withLock {
+      connection.execute(INSERT_STATEMENT, arrayOf(inspectionGroup, inspectionId, hash, json))
+    }
   }
 
   fun insertDuplicate(file: String, line: Int, start: Int, end: Int, hash: String, json: String) {
-    connection.execute(INSERT_DUPLICATES_STATEMENT, arrayOf(file, line, start, end, hash, json))
+    writeLock.withLock {
+      connection.execute(INSERT_DUPLICATES_STATEMENT, arrayOf(file, line, start, end, hash, json))
+    }
   }
 
   fun insertMetricsData(rowData: MetricTableRowData) {
     val metricTable: MetricTable = rowData.metricTable
     @Language("SQLite") val insertStatement: String = metricTable.getInsertStatement()
-    connection.execute(insertStatement, rowData.getValues())
+    writeLock.withLock {
+      connection.execute(insertStatement, rowData.getValues())
+    }
   }
 
   fun deleteMetricsDataForFile(filePath: String, metricTable: MetricTable) {
     @Language("SQLite") val deleteStatement: String = metricTable.getDeleteStatementForFile()
-    connection.execute(deleteStatement, arrayOf(filePath))
+    writeLock.withLock {
+      connection.execute(deleteStatement, arrayOf(filePath))
+    }
   }
 
   fun select(inspectionGroup: String): ToolResultsClosableQuery {
@@ -124,7 +168,9 @@ class QodanaToolResultDatabase private constructor(private val connection: Sqlit
   }
 
   fun insertRelatedProblem(hash: String, json: String) {
-    connection.execute(INSERT_RELATED_PROBLEM, arrayOf(hash, json))
+    writeLock.withLock {
+      connection.execute(INSERT_RELATED_PROBLEM, arrayOf(hash, json))
+    }
   }
 
   fun selectRelatedProblems(hash: String): StringColumnClosableQuery {